@@ -0,0 +1,76 @@
+package io.github.moraesdelima.templateengine;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * {@link Writer} view of an {@link Appendable}, used to stream Gson output
+ * straight into the render output.
+ *
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+final class AppendableWriter extends Writer {
+
+    private final Appendable out;
+
+    private AppendableWriter(Appendable out) {
+        this.out = out;
+    }
+
+    /**
+     * @param out the output
+     * @return the output itself if it is already a {@link Writer}, or a view of it
+     */
+    static Writer of(Appendable out) {
+        return out instanceof Writer ? (Writer) out : new AppendableWriter(out);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        out.append((char) c);
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException {
+        if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(chars, offset, length);
+        } else {
+            for (int i = offset; i < offset + length; i++) {
+                out.append(chars[i]);
+            }
+        }
+    }
+
+    @Override
+    public void write(String text, int offset, int length) throws IOException {
+        out.append(text, offset, offset + length);
+    }
+
+    @Override
+    public Writer append(CharSequence text) throws IOException {
+        out.append(text);
+        return this;
+    }
+
+    @Override
+    public Writer append(CharSequence text, int start, int end) throws IOException {
+        out.append(text, start, end);
+        return this;
+    }
+
+    @Override
+    public Writer append(char c) throws IOException {
+        out.append(c);
+        return this;
+    }
+
+    @Override
+    public void flush() {
+        // nothing is buffered here
+    }
+
+    @Override
+    public void close() {
+        // the output belongs to the caller
+    }
+}
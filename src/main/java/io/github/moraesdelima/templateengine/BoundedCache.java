@@ -0,0 +1,185 @@
+package io.github.moraesdelima.templateengine;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Concurrent cache bounded both by number of entries and by total weight,
+ * with approximate least-recently-used eviction.
+ * <p>
+ * Lookups never block, but every insertion (that is, every miss that is then
+ * cached) takes a single global lock. The recency order is kept in an
+ * access-ordered {@link LinkedHashMap} guarded by that lock: a hit moves its
+ * entry to the most recent end only if the lock is free at that moment, so
+ * readers never wait and the order is approximate under contention.
+ * Insertions are serialized by the lock and evict from the least recent end,
+ * in constant time per evicted entry, until both bounds are respected.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+final class BoundedCache<K, V> {
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final LinkedHashMap<K, Entry<V>> accessOrder = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final int maximumSize;
+    private final long maximumWeight;
+    private final ToLongBiFunction<K, V> weigher;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long weight;
+
+    /**
+     * @param maximumSize   the maximum number of entries; {@code 0} disables caching
+     * @param maximumWeight the maximum sum of the entry weights
+     * @param weigher       computes the weight of an entry
+     */
+    BoundedCache(int maximumSize, long maximumWeight, ToLongBiFunction<K, V> weigher) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("maximumSize must not be negative");
+        }
+        if (maximumWeight < 0) {
+            throw new IllegalArgumentException("maximumWeight must not be negative");
+        }
+        this.maximumSize = maximumSize;
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Returns the value cached for the given key, recording a hit or a miss.
+     *
+     * @param key the key to look up
+     * @return the cached value, or {@code null} if absent
+     */
+    V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        if (evictionLock.tryLock()) {
+            try {
+                // moves the entry to the most recent end, if still cached
+                accessOrder.get(key);
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+        return entry.value;
+    }
+
+    /**
+     * Caches the given value unless another thread cached one first, evicting
+     * the least recently used entries if a bound is exceeded.
+     *
+     * @param key   the key
+     * @param value the value to be cached
+     * @return the value now associated with the key, which may be a value
+     *         cached concurrently by another thread
+     */
+    V put(K key, V value) {
+        long entryWeight = weigher.applyAsLong(key, value);
+        if (maximumSize == 0 || entryWeight > maximumWeight) {
+            return value;
+        }
+        evictionLock.lock();
+        try {
+            Entry<V> entry = new Entry<>(value, entryWeight);
+            Entry<V> existing = entries.putIfAbsent(key, entry);
+            if (existing != null) {
+                return existing.value;
+            }
+            accessOrder.put(key, entry);
+            weight += entryWeight;
+            while ((entries.size() > maximumSize || weight > maximumWeight) && evictOldest(entry)) {
+                // keep evicting until both bounds are respected
+            }
+            return value;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the entry of the given key if it still holds the given value.
+     *
+     * @param key   the key
+     * @param value the value expected to be cached for the key
+     */
+    void remove(K key, V value) {
+        evictionLock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.value == value) {
+                entries.remove(key, entry);
+                accessOrder.remove(key);
+                weight -= entry.weight;
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Removes every cached entry. Statistics are kept.
+     */
+    void clear() {
+        evictionLock.lock();
+        try {
+            entries.clear();
+            accessOrder.clear();
+            weight = 0;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * @return a snapshot of the cache statistics
+     */
+    CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    /**
+     * Evicts the least recently used entry, sparing the entry that is being
+     * inserted. Must be called while holding the eviction lock.
+     *
+     * @return {@code false} if there was no entry to evict
+     */
+    private boolean evictOldest(Entry<V> inserted) {
+        Iterator<Map.Entry<K, Entry<V>>> it = accessOrder.entrySet().iterator();
+        if (!it.hasNext()) {
+            return false;
+        }
+        Map.Entry<K, Entry<V>> oldest = it.next();
+        if (oldest.getValue() == inserted) {
+            return false;
+        }
+        it.remove();
+        entries.remove(oldest.getKey(), oldest.getValue());
+        weight -= oldest.getValue().weight;
+        evictions.increment();
+        return true;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long weight;
+
+        private Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package io.github.moraesdelima.templateengine;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Immutable snapshot of the statistics of a cache kept by the
+ * {@link TemplateEngine}.
+ *
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+@Getter
+@ToString
+public class CacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long size;
+
+    public CacheStats(long hitCount, long missCount, long evictionCount, long size) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.size = size;
+    }
+
+    /**
+     * @return the ratio of lookups that were hits, or {@code 1.0} when there
+     *         were no lookups
+     */
+    public double getHitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+}
@@ -0,0 +1,98 @@
+package io.github.moraesdelima.templateengine;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Set;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+
+/**
+ * {@link CustomFormatter} that remembers the results of a pure formatter in a
+ * bounded, concurrent cache keyed by property name and resolved value.
+ * <p>
+ * Created by {@link CustomFormatter#cached(CustomFormatter, int)}. The cache
+ * evicts the least recently used results once it holds {@code maximumSize}
+ * of them. Results are only cached when the formatter returns normally.
+ * <p>
+ * Only immutable scalar values are used as keys: {@code null}, Strings,
+ * characters, booleans, boxed primitives, {@code BigDecimal},
+ * {@code BigInteger}, enums, {@code Instant}, {@code LocalDate},
+ * {@code LocalDateTime} and {@code LocalTime}. Any other value is passed
+ * straight to the wrapped formatter, uncached and uncounted, so the cache
+ * never keeps a mutable or arbitrary user object alive. The cached keys and
+ * results themselves are strongly referenced until they are evicted.
+ * <p>
+ * Hits never block, but every miss inserts its result under the global lock
+ * of the cache, so a formatter whose values rarely repeat pays that lock on
+ * almost every call without benefiting from the cache.
+ *
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+public final class CachedFormatter implements CustomFormatter {
+
+    /** Stands for a {@code null} result, which the cache cannot hold. */
+    private static final String NULL = new String("null");
+
+    private static final Set<Class<?>> SCALARS = Set.of(String.class, Character.class, Boolean.class,
+            Integer.class, Long.class, Short.class, Byte.class, Double.class, Float.class,
+            BigDecimal.class, BigInteger.class, Instant.class, LocalDate.class, LocalDateTime.class,
+            LocalTime.class);
+
+    private final CustomFormatter formatter;
+    private final BoundedCache<Key, String> results;
+
+    CachedFormatter(CustomFormatter formatter, int maximumSize) {
+        this.formatter = formatter;
+        this.results = new BoundedCache<>(maximumSize, maximumSize, (key, result) -> 1);
+    }
+
+    @Override
+    public String format(String propertyName, Object resolvedValue) throws Exception {
+        if (!isCacheable(resolvedValue)) {
+            return formatter.format(propertyName, resolvedValue);
+        }
+        Key key = new Key(propertyName, resolvedValue);
+        String result = results.get(key);
+        if (result == null) {
+            result = formatter.format(propertyName, resolvedValue);
+            results.put(key, result == null ? NULL : result);
+            return result;
+        }
+        return result == NULL ? null : result;
+    }
+
+    /**
+     * Checks whether a resolved value is an immutable scalar that can be used
+     * as a cache key.
+     */
+    private static boolean isCacheable(Object value) {
+        return value == null || value instanceof Enum || SCALARS.contains(value.getClass());
+    }
+
+    /**
+     * @return a snapshot of the hit, miss and eviction counts of the result cache
+     */
+    public CacheStats getStats() {
+        return results.stats();
+    }
+
+    /**
+     * Discards every cached result, e.g. after a change of the data the
+     * formatter depends on.
+     */
+    public void clear() {
+        results.clear();
+    }
+
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static final class Key {
+        private final String propertyName;
+        private final Object value;
+    }
+}
@@ -0,0 +1,495 @@
+package io.github.moraesdelima.templateengine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * A template parsed once by {@link TemplateEngine#compile(String, int)} and
+ * ready to be rendered many times.
+ * <p>
+ * The template text is pre-split into literal segments and placeholder
+ * descriptors, so {@link #render(Object)} only resolves the property values
+ * and concatenates the result. The placeholder paths are arranged in a prefix
+ * tree, so a parent shared by several paths, such as {@code cliente} in
+ * {@code ${cliente.nome}} and {@code ${cliente.endereco.rua}}, is resolved
+ * once per render. Likewise, a placeholder repeated verbatim is formatted and
+ * serialized once per render. Instances are immutable and can be shared
+ * freely between threads.
+ *
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+public final class CompiledTemplate {
+
+    private final TemplateEngine engine;
+    private final String template;
+    private final int serializationType;
+    private final String[] literals;
+    private final Placeholder[] placeholders;
+    private final PathTree tree;
+    private final int[] sources;
+    private final boolean[] repeated;
+    private final boolean hasRepeats;
+    private static final int EXPORT_BLOCK_SIZE = 8192;
+
+    private final int literalLength;
+    private volatile byte[][] utf8Literals;
+    private volatile SpecializedRenderer specialized;
+
+    CompiledTemplate(TemplateEngine engine, String template, int serializationType,
+            String[] literals, Placeholder[] placeholders) {
+        this.engine = engine;
+        this.template = template;
+        this.serializationType = serializationType;
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.tree = new PathTree(placeholders);
+        this.sources = new int[placeholders.length];
+        this.repeated = new boolean[placeholders.length];
+        Map<String, Integer> expressions = new HashMap<>();
+        boolean anyRepeat = false;
+        for (int i = 0; i < placeholders.length; i++) {
+            Placeholder placeholder = placeholders[i];
+            String expression = placeholder.getFormatterName() == null ? placeholder.getPath()
+                    : placeholder.getPath() + '|' + placeholder.getFormatterName();
+            Integer source = expressions.putIfAbsent(expression, i);
+            sources[i] = source == null ? i : source;
+            if (source != null) {
+                repeated[source] = true;
+                anyRepeat = true;
+            }
+        }
+        this.hasRepeats = anyRepeat;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * @return the original template text
+     */
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return the serialization type the template was compiled with (either
+     *         {@link TemplateEngine#STRING_SERIALIZATION} or
+     *         {@link TemplateEngine#JSON_SERIALIZATION})
+     */
+    public int getSerializationType() {
+        return serializationType;
+    }
+
+    /**
+     * @return the literal segments, one more than the placeholders
+     */
+    String[] getLiterals() {
+        return literals;
+    }
+
+    /**
+     * @return the placeholders, in template order
+     */
+    Placeholder[] getPlaceholders() {
+        return placeholders;
+    }
+
+    /**
+     * Replaces all placeholders of this template with their respective values
+     * from the given Java Bean object.
+     *
+     * @param bean the Java Bean object containing the property values
+     * @return the template with all placeholders replaced with their respective values
+     * @throws GetPropertyException        if the value of a property cannot be obtained
+     * @throws SerializePropertyException  if an error occurs during serialization
+     * @throws FormatterNotFoundException  if a placeholder references a formatter
+     *                                     that has not been registered
+     */
+    public String render(Object bean)
+            throws GetPropertyException, SerializePropertyException, FormatterNotFoundException {
+        StringBuilder result = new StringBuilder(literalLength + 16 * placeholders.length);
+        try {
+            render(bean, result);
+        } catch (IOException e) {
+            // StringBuilder never throws IOException
+            throw new UncheckedIOException(e);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Replaces all placeholders of this template with their respective values
+     * from the given Java Bean object, writing the literal segments and the
+     * resolved values straight into the given output.
+     * <p>
+     * If an exception is thrown, the output may already contain the part of
+     * the template rendered before the failing placeholder.
+     *
+     * @param bean the Java Bean object containing the property values
+     * @param out  the destination of the rendered template, such as a
+     *             {@link java.io.Writer} or a {@link StringBuilder}
+     * @throws GetPropertyException        if the value of a property cannot be obtained
+     * @throws SerializePropertyException  if an error occurs during serialization
+     * @throws FormatterNotFoundException  if a placeholder references a formatter
+     *                                     that has not been registered
+     * @throws IOException                 if writing to the output fails
+     */
+    public void render(Object bean, Appendable out)
+            throws GetPropertyException, SerializePropertyException, FormatterNotFoundException, IOException {
+        RenderListener listener = engine.getListener();
+        if (listener != null) {
+            long start = System.nanoTime();
+            CountingAppendable counting = new CountingAppendable(out);
+            write(bean, counting, specializedFor(bean.getClass()));
+            listener.templateRendered(template, System.nanoTime() - start, counting.getCount());
+            return;
+        }
+        write(bean, out, specializedFor(bean.getClass()));
+    }
+
+    /**
+     * Renders this template as UTF-8 bytes.
+     *
+     * @param bean the Java Bean object containing the property values
+     * @return the UTF-8 encoding of the rendered template
+     * @throws GetPropertyException        if the value of a property cannot be obtained
+     * @throws SerializePropertyException  if an error occurs during serialization
+     * @throws FormatterNotFoundException  if a placeholder references a formatter
+     *                                     that has not been registered
+     * @see #renderUtf8(Object, OutputStream)
+     */
+    public byte[] renderUtf8(Object bean)
+            throws GetPropertyException, SerializePropertyException, FormatterNotFoundException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(literalLength + 16 * placeholders.length);
+        try {
+            renderUtf8(bean, out);
+        } catch (IOException e) {
+            // ByteArrayOutputStream never throws IOException
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Renders this template straight into the given stream as UTF-8 bytes.
+     * <p>
+     * The literal segments are encoded once, on the first UTF-8 render, and
+     * copied as bytes afterwards; only the resolved values are encoded on each
+     * render. The stream is neither flushed nor closed. If an exception is
+     * thrown, the stream may already contain part of the rendered template.
+     *
+     * @param bean the Java Bean object containing the property values
+     * @param out  the destination of the rendered template
+     * @throws GetPropertyException        if the value of a property cannot be obtained
+     * @throws SerializePropertyException  if an error occurs during serialization
+     * @throws FormatterNotFoundException  if a placeholder references a formatter
+     *                                     that has not been registered
+     * @throws IOException                 if writing to the stream fails
+     */
+    public void renderUtf8(Object bean, OutputStream out)
+            throws GetPropertyException, SerializePropertyException, FormatterNotFoundException, IOException {
+        renderUtf8(bean, Utf8Output.of(out));
+    }
+
+    /**
+     * Renders this template straight into the given buffer as UTF-8 bytes,
+     * starting at its current position.
+     *
+     * @param bean the Java Bean object containing the property values
+     * @param out  the destination of the rendered template
+     * @throws GetPropertyException        if the value of a property cannot be obtained
+     * @throws SerializePropertyException  if an error occurs during serialization
+     * @throws FormatterNotFoundException  if a placeholder references a formatter
+     *                                     that has not been registered
+     * @throws java.nio.BufferOverflowException if the rendered template does not
+     *                                          fit in the remaining space of the buffer
+     * @see #renderUtf8(Object, OutputStream)
+     */
+    public void renderUtf8(Object bean, ByteBuffer out)
+            throws GetPropertyException, SerializePropertyException, FormatterNotFoundException {
+        try {
+            renderUtf8(bean, Utf8Output.of(out));
+        } catch (IOException e) {
+            // ByteBuffer never throws IOException
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Renders into a UTF-8 output, reporting to the listener, if any.
+     */
+    private void renderUtf8(Object bean, Utf8Output out)
+            throws GetPropertyException, SerializePropertyException, FormatterNotFoundException, IOException {
+        RenderListener listener = engine.getListener();
+        long start = listener == null ? 0 : System.nanoTime();
+        byte[][] encoded = utf8Literals();
+        PathValues values = new PathValues(engine.getAccessors(), tree, bean, specializedFor(bean.getClass()));
+        String[] memo = hasRepeats ? new String[placeholders.length] : null;
+        for (int i = 0; i < placeholders.length; i++) {
+            out.write(encoded[i]);
+            writePlaceholder(i, bean, values, memo, out);
+        }
+        out.write(encoded[placeholders.length]);
+        out.finish();
+        if (listener != null) {
+            listener.templateRendered(template, System.nanoTime() - start, out.getCount());
+        }
+    }
+
+    /**
+     * Writes the literal segments and the resolved placeholders of this
+     * template.
+     */
+    private void write(Object bean, Appendable out, SpecializedRenderer renderer)
+            throws GetPropertyException, SerializePropertyException, FormatterNotFoundException, IOException {
+        PathValues values = new PathValues(engine.getAccessors(), tree, bean, renderer);
+        String[] memo = hasRepeats ? new String[placeholders.length] : null;
+        for (int i = 0; i < placeholders.length; i++) {
+            out.append(literals[i]);
+            writePlaceholder(i, bean, values, memo, out);
+        }
+        out.append(literals[placeholders.length]);
+    }
+
+    /**
+     * Writes the replacement of the placeholder at the given index.
+     * <p>
+     * Identical placeholders (same path and formatter) are evaluated once per
+     * render: the text of the first occurrence is kept in {@code memo} and
+     * copied for the later ones, unless its formatter is not deterministic.
+     *
+     * @param index  the index of the placeholder
+     * @param bean   the Java Bean object being rendered
+     * @param values the path values of the current render
+     * @param memo   the text of the repeated placeholders evaluated so far in
+     *               the current render, indexed by first occurrence, or
+     *               {@code null} if the template has no repeated placeholder
+     * @param out    the output the replacement is written to
+     */
+    private void writePlaceholder(int index, Object bean, PathValues values, String[] memo, Appendable out)
+            throws GetPropertyException, SerializePropertyException, FormatterNotFoundException, IOException {
+        Placeholder placeholder = placeholders[index];
+        if (memo != null) {
+            int source = sources[index];
+            if (memo[source] != null) {
+                out.append(memo[source]);
+                return;
+            }
+            if (repeated[index] && engine.isMemoizable(placeholder)) {
+                StringBuilder text = new StringBuilder();
+                engine.writeReplacement(placeholder, bean, values, tree.leaf(index), text);
+                memo[index] = text.toString();
+                out.append(memo[index]);
+                return;
+            }
+        }
+        engine.writeReplacement(placeholder, bean, values, tree.leaf(index), out);
+    }
+
+    /**
+     * Returns the literal segments encoded as UTF-8, encoding them on the
+     * first call. Concurrent first calls may encode them more than once, with
+     * identical results.
+     */
+    private byte[][] utf8Literals() {
+        byte[][] encoded = utf8Literals;
+        if (encoded == null) {
+            encoded = new byte[literals.length][];
+            for (int i = 0; i < literals.length; i++) {
+                encoded[i] = literals[i].getBytes(StandardCharsets.UTF_8);
+            }
+            utf8Literals = encoded;
+        }
+        return encoded;
+    }
+
+    /**
+     * Renders every bean of the stream back-to-back into the given writer.
+     *
+     * @param beans     the Java Bean objects to be rendered, one row each
+     * @param separator written between two rows, or {@code null} for none
+     * @param out       the destination of the rows
+     * @return the number of rows written
+     * @throws GetPropertyException        if the value of a property cannot be obtained
+     * @throws SerializePropertyException  if an error occurs during serialization
+     * @throws FormatterNotFoundException  if a placeholder references a formatter
+     *                                     that has not been registered
+     * @throws IOException                 if writing to the output fails
+     * @see #renderEach(Iterator, String, Writer)
+     */
+    public long renderEach(Stream<?> beans, String separator, Writer out)
+            throws GetPropertyException, SerializePropertyException, FormatterNotFoundException, IOException {
+        return renderEach(beans.iterator(), separator, out);
+    }
+
+    /**
+     * Renders every bean of the iterator back-to-back into the given writer,
+     * for exports such as NDJSON or CSV.
+     * <p>
+     * Rows are rendered into one reusable buffer, which is copied to the
+     * writer in blocks, so no String is created per row. The getters are
+     * resolved once for the class of the first bean and reused for every bean
+     * of that class. The first failing row aborts the export; the rows before
+     * it may already have been written. The writer is neither flushed nor
+     * closed.
+     *
+     * @param beans     the Java Bean objects to be rendered, one row each
+     * @param separator written between two rows (e.g. {@code "\n"}), or
+     *                  {@code null} for none
+     * @param out       the destination of the rows
+     * @return the number of rows written
+     * @throws GetPropertyException        if the value of a property cannot be obtained
+     * @throws SerializePropertyException  if an error occurs during serialization
+     * @throws FormatterNotFoundException  if a placeholder references a formatter
+     *                                     that has not been registered
+     * @throws IOException                 if writing to the output fails
+     */
+    public long renderEach(Iterator<?> beans, String separator, Writer out)
+            throws GetPropertyException, SerializePropertyException, FormatterNotFoundException, IOException {
+        RenderListener listener = engine.getListener();
+        StringBuilder rows = new StringBuilder(EXPORT_BLOCK_SIZE + literalLength + 16 * placeholders.length);
+        char[] block = new char[EXPORT_BLOCK_SIZE];
+        SpecializedRenderer renderer = null;
+        long count = 0;
+        while (beans.hasNext()) {
+            Object bean = beans.next();
+            if (count > 0 && separator != null) {
+                rows.append(separator);
+            }
+            if (renderer == null) {
+                renderer = new SpecializedRenderer(engine, bean.getClass(), tree);
+            }
+            SpecializedRenderer matching = renderer.getBeanClass() == bean.getClass() ? renderer : null;
+            if (listener == null) {
+                write(bean, rows, matching);
+            } else {
+                long start = System.nanoTime();
+                int rowStart = rows.length();
+                write(bean, rows, matching);
+                listener.templateRendered(template, System.nanoTime() - start, rows.length() - rowStart);
+            }
+            count++;
+            if (rows.length() >= EXPORT_BLOCK_SIZE) {
+                drain(rows, block, out);
+            }
+        }
+        drain(rows, block, out);
+        return count;
+    }
+
+    /**
+     * Copies the buffered rows to the writer through the block array, so no
+     * String is created, and empties the buffer.
+     */
+    private static void drain(StringBuilder rows, char[] block, Writer out) throws IOException {
+        int length = rows.length();
+        for (int from = 0; from < length; from += block.length) {
+            int to = Math.min(length, from + block.length);
+            rows.getChars(from, to, block, 0);
+            out.write(block, 0, to - from);
+        }
+        rows.setLength(0);
+    }
+
+    /**
+     * Renders every bean of the list in parallel on the common
+     * {@link ForkJoinPool}.
+     *
+     * @param beans the Java Bean objects to be rendered
+     * @return one result per bean, in the order of the list
+     * @see #renderAll(List, Executor)
+     */
+    public List<RenderResult> renderAll(List<?> beans) {
+        return renderAll(beans, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Renders every bean of the list, spreading contiguous slices of the list
+     * over the given executor.
+     * <p>
+     * A bean that fails with a {@link TemplateEngineException} does not abort
+     * the batch: its result carries the exception instead of an output.
+     * Runtime exceptions, such as those thrown by formatters, abort the batch
+     * and are rethrown once every slice has finished.
+     *
+     * @param beans    the Java Bean objects to be rendered
+     * @param executor runs the slices; its parallelism bounds the speedup
+     * @return one result per bean, in the order of the list
+     */
+    public List<RenderResult> renderAll(List<?> beans, Executor executor) {
+        int size = beans.size();
+        RenderResult[] results = new RenderResult[size];
+        int parallelism = executor instanceof ForkJoinPool
+                ? ((ForkJoinPool) executor).getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        int slices = Math.max(1, Math.min(size, parallelism * 4));
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[slices];
+        for (int slice = 0; slice < slices; slice++) {
+            int from = (int) ((long) size * slice / slices);
+            int to = (int) ((long) size * (slice + 1) / slices);
+            futures[slice] = CompletableFuture.runAsync(() -> {
+                for (int i = from; i < to; i++) {
+                    results[i] = renderResult(beans.get(i));
+                }
+            }, executor);
+        }
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    /**
+     * Renders one bean of a batch, capturing its failure.
+     */
+    private RenderResult renderResult(Object bean) {
+        try {
+            return RenderResult.success(bean, render(bean));
+        } catch (TemplateEngineException e) {
+            return RenderResult.failure(bean, e);
+        }
+    }
+
+    /**
+     * Returns the renderer specialized for the given bean class, creating it
+     * on the first render when specialization is enabled on the engine.
+     *
+     * @param beanClass the class of the bean being rendered
+     * @return the specialized renderer, or {@code null} if specialization is
+     *         disabled or the template was specialized for another class
+     */
+    private SpecializedRenderer specializedFor(Class<?> beanClass) {
+        SpecializedRenderer renderer = specialized;
+        if (renderer == null) {
+            if (!engine.isSpecializedRenderers()) {
+                return null;
+            }
+            renderer = new SpecializedRenderer(engine, beanClass, tree);
+            specialized = renderer;
+        }
+        return renderer.getBeanClass() == beanClass ? renderer : null;
+    }
+}
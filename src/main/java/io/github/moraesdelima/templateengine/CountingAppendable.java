@@ -0,0 +1,49 @@
+package io.github.moraesdelima.templateengine;
+
+import java.io.IOException;
+
+/**
+ * {@link Appendable} that forwards to another one while counting the
+ * characters written, used to report the size of a render to a
+ * {@link RenderListener}.
+ *
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+final class CountingAppendable implements Appendable {
+
+    private final Appendable out;
+    private long count;
+
+    CountingAppendable(Appendable out) {
+        this.out = out;
+    }
+
+    /**
+     * @return the number of characters written so far
+     */
+    long getCount() {
+        return count;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) throws IOException {
+        CharSequence text = csq == null ? "null" : csq;
+        out.append(text);
+        count += text.length();
+        return this;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) throws IOException {
+        out.append(csq == null ? "null" : csq, start, end);
+        count += end - start;
+        return this;
+    }
+
+    @Override
+    public Appendable append(char c) throws IOException {
+        out.append(c);
+        count++;
+        return this;
+    }
+}
@@ -25,4 +25,72 @@ public interface CustomFormatter {
      *                   in {@link SerializePropertyException}
      */
     String format(String propertyName, Object resolvedValue) throws Exception;
+
+    /**
+     * Tells whether the formatter always returns the same text for the same
+     * value. A placeholder repeated in a template is then formatted once per
+     * render and its text reused for the other occurrences.
+     *
+     * @return {@code true} by default
+     * @see #nonDeterministic(CustomFormatter)
+     */
+    default boolean isDeterministic() {
+        return true;
+    }
+
+    /**
+     * Wraps a pure formatter, one whose result depends only on the property
+     * name and the resolved value, so its results are kept in a bounded,
+     * concurrent cache and reused across renders. Only
+     * immutable scalar values are cached; any other value is passed straight
+     * to the wrapped formatter (see {@link CachedFormatter}).
+     * <pre>
+     * CachedFormatter moeda = CustomFormatter.cached((p, v) -&gt; currency.format(v), 10_000);
+     * engine.registerFormatter("moeda", moeda);
+     * moeda.getStats().getHitRate();
+     * </pre>
+     *
+     * @param formatter   the pure formatter to be wrapped (must not be null)
+     * @param maximumSize the maximum number of results kept; {@code 0}
+     *                    disables caching
+     * @return a formatter delegating to the given one on cache misses
+     * @throws IllegalArgumentException if formatter is null or not
+     *                                  {@link #isDeterministic() deterministic},
+     *                                  or if maximumSize is negative
+     */
+    static CachedFormatter cached(CustomFormatter formatter, int maximumSize) {
+        if (formatter == null) {
+            throw new IllegalArgumentException("formatter must not be null");
+        }
+        if (!formatter.isDeterministic()) {
+            throw new IllegalArgumentException("formatter is not deterministic and can't be cached");
+        }
+        return new CachedFormatter(formatter, maximumSize);
+    }
+
+    /**
+     * Wraps a formatter whose result may change between calls (e.g. one that
+     * writes the current time or a counter), so every occurrence of a repeated
+     * placeholder is formatted again.
+     *
+     * @param formatter the formatter to be wrapped (must not be null)
+     * @return a formatter delegating to the given one and reporting itself as
+     *         not deterministic
+     */
+    static CustomFormatter nonDeterministic(CustomFormatter formatter) {
+        if (formatter == null) {
+            throw new IllegalArgumentException("formatter must not be null");
+        }
+        return new CustomFormatter() {
+            @Override
+            public String format(String propertyName, Object resolvedValue) throws Exception {
+                return formatter.format(propertyName, resolvedValue);
+            }
+
+            @Override
+            public boolean isDeterministic() {
+                return false;
+            }
+        };
+    }
 }
@@ -0,0 +1,41 @@
+package io.github.moraesdelima.templateengine;
+
+/**
+ * {@link CustomFormatter} specialized for {@code int} values.
+ * <p>
+ * When the placeholder path ends in a getter returning {@code int}, the
+ * engine reads the property and calls {@link #formatInt(String, int)} without
+ * boxing the value, provided the engine uses
+ * {@link TemplateEngine#METHOD_HANDLE_ACCESSORS} or
+ * {@link TemplateEngine#LAMBDA_ACCESSORS} and the formatter is the only one
+ * of the placeholder. Any other value goes through
+ * {@link #format(String, Object)}, which unboxes numbers and formats
+ * {@code null} as {@code "null"}.
+ *
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+@FunctionalInterface
+public interface IntFormatter extends CustomFormatter {
+
+    /**
+     * Formats a {@code int} property value.
+     *
+     * @param propertyName the dot-notation path of the placeholder
+     * @param value        the property value
+     * @return the String to be inserted in the template; if {@code null} is returned,
+     *         the engine will insert the literal String {@code "null"}
+     * @throws Exception if formatting fails; checked exceptions will be wrapped
+     *                   in {@link SerializePropertyException}
+     */
+    String formatInt(String propertyName, int value) throws Exception;
+
+    /**
+     * Formats a boxed value by unboxing it.
+     *
+     * @throws ClassCastException if the value is not a {@link Number}
+     */
+    @Override
+    default String format(String propertyName, Object resolvedValue) throws Exception {
+        return resolvedValue == null ? null : formatInt(propertyName, ((Number) resolvedValue).intValue());
+    }
+}
@@ -0,0 +1,177 @@
+package io.github.moraesdelima.templateengine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Renders a UTF-8 template file into an output file without loading either
+ * into the Java heap.
+ * <p>
+ * The template is memory-mapped and scanned byte by byte: every byte of a
+ * multi-byte UTF-8 sequence is {@code >= 0x80}, so it can never be mistaken
+ * for one of the ASCII characters of the placeholder syntax. Only the
+ * placeholder paths and formatter names are decoded. Literal regions are
+ * then copied from the template file to the output file with
+ * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+ * and only the resolved values are encoded.
+ * <p>
+ * The whole template is scanned before the output file is opened, so a
+ * malformed placeholder or an unknown formatter fails without touching the
+ * output. The price is an on-heap list holding one entry per literal region
+ * and one bound placeholder per placeholder occurrence, kept until the
+ * render ends: heap usage grows linearly with the number of placeholders in
+ * the template, not with its size in bytes. A large file with few
+ * placeholders is cheap; a file with millions of placeholders needs heap
+ * for millions of entries.
+ * <p>
+ * A {@link RenderListener} is told about the scan and the render under the
+ * path of the template file, with the size of the output in bytes.
+ *
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+final class MappedTemplateRenderer {
+
+    private MappedTemplateRenderer() {
+    }
+
+    /**
+     * Renders the template file into the output file, which is created or
+     * truncated.
+     *
+     * @param engine            the engine resolving the placeholders
+     * @param template          the UTF-8 template file
+     * @param bean              the Java Bean object containing the property values
+     * @param serializationType the type of serialization to be used
+     * @param output            the output file
+     * @throws GetPropertyException       if the value of a property cannot be obtained
+     * @throws SerializePropertyException if an error occurs during serialization
+     * @throws FormatterNotFoundException if the template references a formatter
+     *                                    that has not been registered
+     * @throws TemplateParseException     if the template contains a malformed placeholder
+     * @throws IOException                if reading the template or writing the output fails
+     */
+    static void render(TemplateEngine engine, Path template, Object bean, int serializationType, Path output)
+            throws GetPropertyException, SerializePropertyException, FormatterNotFoundException,
+            TemplateParseException, IOException {
+        try (FileChannel in = FileChannel.open(template, StandardOpenOption.READ)) {
+            long size = in.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Can't map template larger than 2 GB: " + template);
+            }
+            RenderListener listener = engine.getListener();
+            long start = listener == null ? 0 : System.nanoTime();
+            MappedByteBuffer mapped = in.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            List<Object> segments = scan(engine, new ByteChars(mapped, 0, (int) size), serializationType);
+            if (listener != null) {
+                long scanned = System.nanoTime();
+                listener.templateCompiled(template.toString(), scanned - start);
+                start = scanned;
+            }
+            try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                write(engine, segments, bean, in, out);
+                if (listener != null) {
+                    listener.templateRendered(template.toString(), System.nanoTime() - start, out.size());
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits the template into literal regions, as {@code long[] {start, end}}
+     * byte offsets, and placeholders, in template order. The list has up to
+     * two entries per placeholder.
+     */
+    private static List<Object> scan(TemplateEngine engine, ByteChars text, int serializationType)
+            throws TemplateParseException, FormatterNotFoundException {
+        List<Object> segments = new ArrayList<>();
+        new TemplateParser().parse(text, 0, text.length(), true,
+                new TemplateParser.Handler<FormatterNotFoundException>() {
+                    @Override
+                    public void literal(CharSequence chars, int start, int end) {
+                        segments.add(new long[] { start, end });
+                    }
+
+                    @Override
+                    public void placeholder(String path, String formatterName) throws FormatterNotFoundException {
+                        segments.add(engine.bindPlaceholder(path, formatterName, serializationType));
+                    }
+                });
+        return segments;
+    }
+
+    /**
+     * Transfers the literal regions and writes the resolved placeholders.
+     */
+    private static void write(TemplateEngine engine, List<Object> segments, Object bean, FileChannel in,
+            FileChannel out)
+            throws GetPropertyException, SerializePropertyException, FormatterNotFoundException, IOException {
+        Utf8Output values = Utf8Output.of(Channels.newOutputStream(out));
+        PathValues pathValues = new PathValues(engine.getAccessors(), bean);
+        for (Object segment : segments) {
+            if (segment instanceof Placeholder) {
+                engine.writeReplacement((Placeholder) segment, bean, pathValues, -1, values);
+                continue;
+            }
+            // the buffered value bytes must reach the channel before the literal
+            values.finish();
+            long[] region = (long[]) segment;
+            long position = region[0];
+            while (position < region[1]) {
+                long transferred = in.transferTo(position, region[1] - position, out);
+                if (transferred == 0) {
+                    throw new IOException("Can't transfer template bytes; was the template file truncated?");
+                }
+                position += transferred;
+            }
+        }
+        values.finish();
+    }
+
+    /**
+     * Byte-per-char view of a UTF-8 buffer for the parser, whose
+     * {@code toString()} decodes the bytes.
+     */
+    private static final class ByteChars implements CharSequence {
+
+        private final ByteBuffer buffer;
+        private final int offset;
+        private final int length;
+
+        ByteChars(ByteBuffer buffer, int offset, int length) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(offset + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new ByteChars(buffer, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            byte[] bytes = new byte[length];
+            buffer.duplicate().position(offset).get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package io.github.moraesdelima.templateengine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prefix tree of the property paths referenced by the placeholders of a
+ * {@link CompiledTemplate}.
+ * <p>
+ * Each node stands for one distinct path prefix, such as {@code cliente} and
+ * {@code cliente.endereco} for {@code ${cliente.endereco.rua}}, so paths
+ * sharing a parent share its node. Nodes are numbered so that a parent always
+ * comes before its children, and each placeholder is mapped to the node of its
+ * full path.
+ *
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+final class PathTree {
+
+    private final String[] segments;
+    private final int[] parents;
+    private final int[] leaves;
+
+    PathTree(Placeholder[] placeholders) {
+        Map<String, Integer> nodes = new HashMap<>();
+        List<String> nodeSegments = new ArrayList<>();
+        List<Integer> nodeParents = new ArrayList<>();
+        this.leaves = new int[placeholders.length];
+        for (int i = 0; i < placeholders.length; i++) {
+            int node = -1;
+            for (String segment : placeholders[i].getSegments()) {
+                String key = node + "." + segment;
+                Integer child = nodes.get(key);
+                if (child == null) {
+                    child = nodeSegments.size();
+                    nodes.put(key, child);
+                    nodeSegments.add(segment);
+                    nodeParents.add(node);
+                }
+                node = child;
+            }
+            leaves[i] = node;
+        }
+        this.segments = nodeSegments.toArray(new String[0]);
+        this.parents = new int[segments.length];
+        for (int node = 0; node < parents.length; node++) {
+            parents[node] = nodeParents.get(node);
+        }
+    }
+
+    /**
+     * @return the number of distinct path prefixes
+     */
+    int size() {
+        return segments.length;
+    }
+
+    /**
+     * @param node a node of the tree
+     * @return the last path segment of the node (e.g. "rua")
+     */
+    String segment(int node) {
+        return segments[node];
+    }
+
+    /**
+     * @param node a node of the tree
+     * @return the parent node, or {@code -1} if the node is a property of the
+     *         bean itself
+     */
+    int parent(int node) {
+        return parents[node];
+    }
+
+    /**
+     * @param placeholder the index of a placeholder in the compiled template
+     * @return the node of the full path of the placeholder
+     */
+    int leaf(int placeholder) {
+        return leaves[placeholder];
+    }
+}
@@ -0,0 +1,262 @@
+package io.github.moraesdelima.templateengine;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The values of the nodes of a {@link PathTree} for one render of one bean.
+ * <p>
+ * Each node is resolved on first use, from the value of its parent, and then
+ * remembered for the rest of the render, so a getter shared by several
+ * placeholders is invoked once per render. Nodes whose getter returns an
+ * {@code int}, {@code long} or {@code double} may be read with
+ * {@link #readPrimitive(int)}, which keeps the value unboxed until someone
+ * asks for it as an object.
+ * <p>
+ * A value that is a {@link Supplier}, whether returned by a getter or stored
+ * in a {@code Map}, is replaced by the result of {@link Supplier#get()} the
+ * first time a path reaches it, and that result is kept for the rest of the
+ * render; suppliers no placeholder reaches are never called. Renderers that
+ * walk each path from the bean use {@link #PathValues(PropertyAccessors, Object)}
+ * only for that memo. Instances are confined to the rendering thread.
+ *
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+final class PathValues {
+
+    private static final Object UNRESOLVED = new Object();
+    private static final Object PRIMITIVE = new Object();
+
+    private final PropertyAccessors accessors;
+    private final PathTree tree;
+    private final Object bean;
+    private final SpecializedRenderer renderer;
+    private final Object[] values;
+    private final Class<?>[] types;
+    private long[] primitives;
+    private Map<Supplier<?>, Object> suppliedValues;
+
+    /**
+     * @param accessors the getter lookup of the engine
+     * @param tree      the paths of the compiled template
+     * @param bean      the Java Bean object being rendered
+     * @param renderer  getters pre-resolved for the exact class of the bean,
+     *                  or {@code null}
+     */
+    PathValues(PropertyAccessors accessors, PathTree tree, Object bean, SpecializedRenderer renderer) {
+        this.accessors = accessors;
+        this.tree = tree;
+        this.bean = bean;
+        this.renderer = renderer;
+        this.values = new Object[tree.size()];
+        this.types = new Class<?>[tree.size()];
+        Arrays.fill(values, UNRESOLVED);
+    }
+
+    /**
+     * Creates values without nodes, for renderers that resolve each path from
+     * the bean and only need the {@link Supplier} memo of the render.
+     *
+     * @param accessors the getter lookup of the engine
+     * @param bean      the Java Bean object being rendered
+     */
+    PathValues(PropertyAccessors accessors, Object bean) {
+        this(accessors, new PathTree(new Placeholder[0]), bean, null);
+    }
+
+    /**
+     * @param node a node of the tree
+     * @return the value of the path of the node in the bean
+     * @throws GetPropertyException if the value cannot be obtained
+     */
+    Object get(int node) throws GetPropertyException {
+        Object value = values[node];
+        if (value == PRIMITIVE) {
+            value = box(node);
+            values[node] = value;
+            return value;
+        }
+        if (value != UNRESOLVED) {
+            return value;
+        }
+        int parent = tree.parent(node);
+        Object parentValue = parent < 0 ? bean : get(parent);
+        Class<?> parentType = parent < 0 ? bean.getClass() : types[parent];
+        String property = tree.segment(node);
+        Class<?> type;
+        if (parentValue == null) {
+            value = null;
+            type = Object.class;
+        } else if (parentValue instanceof Map) {
+            value = supplied(((Map<?, ?>) parentValue).get(property), property, parentValue.getClass());
+            type = value != null ? value.getClass() : Object.class;
+        } else {
+            PropertyAccessor accessor = accessor(node, parentType, property);
+            try {
+                value = accessor.get(parentValue);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new GetPropertyException(property, parentValue.getClass(), e);
+            }
+            type = accessor.getType();
+            if (value instanceof Supplier) {
+                value = supplied(value, property, parentValue.getClass());
+                type = value != null ? value.getClass() : Object.class;
+            }
+        }
+        values[node] = value;
+        types[node] = type;
+        return value;
+    }
+
+    /**
+     * Evaluates a {@link Supplier} value, once per render.
+     *
+     * @param value     the value read from a getter or a {@code Map}
+     * @param property  the property the value was read from
+     * @param ownerType the class of the object the value was read from
+     * @return the result of the supplier, or the value itself if it is not a
+     *         supplier
+     * @throws GetPropertyException if the supplier throws an exception
+     */
+    Object supplied(Object value, String property, Class<?> ownerType) throws GetPropertyException {
+        if (!(value instanceof Supplier)) {
+            return value;
+        }
+        Supplier<?> supplier = (Supplier<?>) value;
+        if (suppliedValues == null) {
+            suppliedValues = new IdentityHashMap<>();
+        } else if (suppliedValues.containsKey(supplier)) {
+            return suppliedValues.get(supplier);
+        }
+        Object result;
+        try {
+            result = supplier.get();
+        } catch (RuntimeException e) {
+            throw new GetPropertyException(property, ownerType, e);
+        }
+        suppliedValues.put(supplier, result);
+        return result;
+    }
+
+    /**
+     * Resolves a node whose getter returns an {@code int}, {@code long} or
+     * {@code double} without boxing its value, which is then available from
+     * {@link #intValue(int)}, {@link #longValue(int)} or
+     * {@link #doubleValue(int)} according to {@link #primitiveKind(int)}.
+     *
+     * @param node a node of the tree
+     * @return {@code false} if the value is not read that way (the node was
+     *         already resolved as an object, its parent is {@code null} or a
+     *         {@code Map}, or its getter returns another type); it must then
+     *         be obtained with {@link #get(int)}
+     * @throws GetPropertyException if the value cannot be obtained
+     */
+    boolean readPrimitive(int node) throws GetPropertyException {
+        Object value = values[node];
+        if (value != UNRESOLVED) {
+            return value == PRIMITIVE;
+        }
+        int parent = tree.parent(node);
+        Object parentValue = parent < 0 ? bean : get(parent);
+        if (parentValue == null || parentValue instanceof Map) {
+            return false;
+        }
+        Class<?> parentType = parent < 0 ? bean.getClass() : types[parent];
+        String property = tree.segment(node);
+        PropertyAccessor accessor = accessor(node, parentType, property);
+        int kind = accessor.getPrimitiveKind();
+        if (kind == PropertyAccessor.NOT_PRIMITIVE) {
+            return false;
+        }
+        if (primitives == null) {
+            primitives = new long[values.length];
+        }
+        try {
+            if (kind == PropertyAccessor.INT) {
+                primitives[node] = accessor.getInt(parentValue);
+            } else if (kind == PropertyAccessor.LONG) {
+                primitives[node] = accessor.getLong(parentValue);
+            } else {
+                primitives[node] = Double.doubleToRawLongBits(accessor.getDouble(parentValue));
+            }
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new GetPropertyException(property, parentValue.getClass(), e);
+        }
+        values[node] = PRIMITIVE;
+        types[node] = accessor.getType();
+        return true;
+    }
+
+    /**
+     * @param node a node read by {@link #readPrimitive(int)}
+     * @return {@link PropertyAccessor#INT}, {@link PropertyAccessor#LONG} or
+     *         {@link PropertyAccessor#DOUBLE}
+     */
+    int primitiveKind(int node) {
+        return PropertyAccessor.primitiveKind(types[node]);
+    }
+
+    /**
+     * @param node an {@link PropertyAccessor#INT} node read by {@link #readPrimitive(int)}
+     * @return its value
+     */
+    int intValue(int node) {
+        return (int) primitives[node];
+    }
+
+    /**
+     * @param node a {@link PropertyAccessor#LONG} node read by {@link #readPrimitive(int)}
+     * @return its value
+     */
+    long longValue(int node) {
+        return primitives[node];
+    }
+
+    /**
+     * @param node a {@link PropertyAccessor#DOUBLE} node read by {@link #readPrimitive(int)}
+     * @return its value
+     */
+    double doubleValue(int node) {
+        return Double.longBitsToDouble(primitives[node]);
+    }
+
+    /**
+     * Returns the getter of a node, preferring the one pre-resolved by the
+     * specialized renderer.
+     */
+    private PropertyAccessor accessor(int node, Class<?> parentType, String property) throws GetPropertyException {
+        PropertyAccessor accessor = renderer == null ? null : renderer.accessor(node);
+        if (accessor == null) {
+            accessor = accessors.get(parentType, property);
+            if (accessor == null) {
+                throw new GetPropertyException(property, parentType);
+            }
+        }
+        return accessor;
+    }
+
+    /**
+     * Boxes a value read by {@link #readPrimitive(int)} into the wrapper of
+     * the declared type of its getter.
+     */
+    private Object box(int node) {
+        Class<?> type = types[node];
+        long bits = primitives[node];
+        if (type == int.class) {
+            return (int) bits;
+        }
+        if (type == short.class) {
+            return (short) bits;
+        }
+        if (type == byte.class) {
+            return (byte) bits;
+        }
+        if (type == long.class) {
+            return bits;
+        }
+        return Double.longBitsToDouble(bits);
+    }
+}
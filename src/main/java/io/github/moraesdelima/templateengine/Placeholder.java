@@ -0,0 +1,103 @@
+package io.github.moraesdelima.templateengine;
+
+/**
+ * Immutable descriptor of a single {@code ${path|formatter|...}} occurrence
+ * in a {@link CompiledTemplate}, with its formatter chain already bound.
+ *
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+final class Placeholder {
+
+    private static final String[] NO_NAMES = new String[0];
+    private static final CustomFormatter[] NO_FORMATTERS = new CustomFormatter[0];
+
+    private final String path;
+    private final String[] segments;
+    private final String formatterName;
+    private final String[] formatterNames;
+    private final CustomFormatter[] formatters;
+    private final int serializationType;
+    private final boolean primitiveCandidate;
+
+    /**
+     * @param path              the dot-notation path of the placeholder
+     * @param formatterName     the formatter chain (e.g. "trim|upper"), or
+     *                          {@code null} when none was given
+     * @param formatters        the formatters of the chain, in order
+     * @param serializationType the serialization type used to render the placeholder
+     */
+    Placeholder(String path, String formatterName, CustomFormatter[] formatters, int serializationType) {
+        this.path = path;
+        this.segments = path.split("\\.");
+        this.formatterName = formatterName;
+        this.formatterNames = formatterNames(formatterName);
+        this.formatters = formatters == null ? NO_FORMATTERS : formatters;
+        this.serializationType = serializationType;
+        this.primitiveCandidate = this.formatters.length == 0 || this.formatters.length == 1
+                && (this.formatters[0] instanceof IntFormatter || this.formatters[0] instanceof LongFormatter
+                        || this.formatters[0] instanceof DoubleFormatter);
+    }
+
+    /**
+     * Splits a formatter chain into the names of its formatters.
+     *
+     * @param formatterName the formatter chain (e.g. "trim|upper"), or {@code null}
+     * @return the names of the formatters, in order
+     */
+    static String[] formatterNames(String formatterName) {
+        return formatterName == null ? NO_NAMES : formatterName.split("\\|");
+    }
+
+    /**
+     * @return the dot-notation path of the placeholder (e.g. "cliente.endereco.rua")
+     */
+    String getPath() {
+        return path;
+    }
+
+    /**
+     * @return the path split at each dot, computed once at compile time
+     */
+    String[] getSegments() {
+        return segments;
+    }
+
+    /**
+     * @return the formatter chain referenced by the placeholder (e.g.
+     *         "trim|upper"), or {@code null} when none was given
+     */
+    String getFormatterName() {
+        return formatterName;
+    }
+
+    /**
+     * @return the names of the formatters of the chain, in order
+     */
+    String[] getFormatterNames() {
+        return formatterNames;
+    }
+
+    /**
+     * @return the formatters of the chain, bound when the template was parsed
+     */
+    CustomFormatter[] getFormatters() {
+        return formatters;
+    }
+
+    /**
+     * @return the serialization type used to render the placeholder
+     */
+    int getSerializationType() {
+        return serializationType;
+    }
+
+    /**
+     * @return {@code true} if the placeholder has no formatter, or a single
+     *         {@link IntFormatter}, {@link LongFormatter} or
+     *         {@link DoubleFormatter}, so a primitive value may be written
+     *         without boxing it
+     */
+    boolean isPrimitiveCandidate() {
+        return primitiveCandidate;
+    }
+}
@@ -0,0 +1,282 @@
+package io.github.moraesdelima.templateengine;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.function.Function;
+
+/**
+ * Reads one property of a Java Bean through its resolved getter.
+ * <p>
+ * Accessors are resolved once per (bean class, property name) pair by
+ * {@link PropertyAccessors} and reused by every render. This base class
+ * invokes the getter by reflection; {@link #methodHandle(Method)} and
+ * {@link #lambda(Method)} create accessors the JIT can inline.
+ *
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+class PropertyAccessor {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GENERIC_GETTER = MethodType.methodType(Object.class, Object.class);
+
+    /** The getter does not return a primitive read without boxing. */
+    static final int NOT_PRIMITIVE = 0;
+    /** The getter returns an {@code int}, {@code short} or {@code byte}. */
+    static final int INT = 1;
+    /** The getter returns a {@code long}. */
+    static final int LONG = 2;
+    /** The getter returns a {@code double}. */
+    static final int DOUBLE = 3;
+
+    private final Method getter;
+    private final int primitiveKind;
+    private final MethodHandle primitive;
+
+    PropertyAccessor(Method getter) {
+        this(getter, null);
+    }
+
+    /**
+     * @param getter    the resolved getter
+     * @param primitive the getter adapted to return its primitive type from an
+     *                  {@code Object} receiver, or {@code null} to read
+     *                  primitives by unboxing {@link #get(Object)}
+     */
+    private PropertyAccessor(Method getter, MethodHandle primitive) {
+        this.getter = getter;
+        this.primitiveKind = getter == null ? NOT_PRIMITIVE : primitiveKind(getter.getReturnType());
+        this.primitive = primitive;
+    }
+
+    /**
+     * Creates an accessor that invokes the getter through a {@link MethodHandle}.
+     *
+     * @param getter the resolved getter
+     * @return the accessor, or a reflective one if the getter is not accessible
+     *         from this package
+     */
+    static PropertyAccessor methodHandle(Method getter) {
+        try {
+            MethodHandle handle = LOOKUP.unreflect(getter);
+            return new MethodHandleAccessor(getter, handle.asType(GENERIC_GETTER), primitiveHandle(handle));
+        } catch (IllegalAccessException e) {
+            return new PropertyAccessor(getter);
+        }
+    }
+
+    /**
+     * Creates an accessor that invokes the getter through a
+     * {@link Function} spun by {@link LambdaMetafactory}.
+     *
+     * @param getter the resolved getter
+     * @return the accessor, or a reflective one if the getter is not accessible
+     *         from this package or its class is not visible to this class loader
+     */
+    @SuppressWarnings("unchecked")
+    static PropertyAccessor lambda(Method getter) {
+        Class<?> declaringClass = getter.getDeclaringClass();
+        if (!isVisible(declaringClass)) {
+            return new PropertyAccessor(getter);
+        }
+        try {
+            MethodHandle handle = LOOKUP.unreflect(getter);
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply",
+                    MethodType.methodType(Function.class), GENERIC_GETTER, handle,
+                    MethodType.methodType(handle.type().wrap().returnType(), declaringClass));
+            return new LambdaAccessor(getter, (Function<Object, Object>) site.getTarget().invokeExact(),
+                    primitiveHandle(handle));
+        } catch (Throwable e) {
+            return new PropertyAccessor(getter);
+        }
+    }
+
+    /**
+     * @param type the return type of a getter
+     * @return {@link #INT}, {@link #LONG}, {@link #DOUBLE} or {@link #NOT_PRIMITIVE}
+     */
+    static int primitiveKind(Class<?> type) {
+        if (type == int.class || type == short.class || type == byte.class) {
+            return INT;
+        }
+        if (type == long.class) {
+            return LONG;
+        }
+        if (type == double.class) {
+            return DOUBLE;
+        }
+        return NOT_PRIMITIVE;
+    }
+
+    /**
+     * Adapts a getter handle to {@code (Object)int}, {@code (Object)long} or
+     * {@code (Object)double}, so it can be invoked exactly without boxing.
+     *
+     * @return the adapted handle, or {@code null} if the getter does not
+     *         return one of those primitives
+     */
+    private static MethodHandle primitiveHandle(MethodHandle handle) {
+        switch (primitiveKind(handle.type().returnType())) {
+            case INT:
+                return handle.asType(MethodType.methodType(int.class, Object.class));
+            case LONG:
+                return handle.asType(MethodType.methodType(long.class, Object.class));
+            case DOUBLE:
+                return handle.asType(MethodType.methodType(double.class, Object.class));
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Checks that the class resolves to the same class from this library's
+     * class loader, which is where lambda classes are defined.
+     */
+    private static boolean isVisible(Class<?> type) {
+        try {
+            return Class.forName(type.getName(), false, PropertyAccessor.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the getter this accessor invokes
+     */
+    Method getGetter() {
+        return getter;
+    }
+
+    /**
+     * @return the declared return type of the getter, used to resolve the next
+     *         segment of a nested path
+     */
+    Class<?> getType() {
+        return getter.getReturnType();
+    }
+
+    /**
+     * Invokes the getter on the given bean.
+     *
+     * @param bean the object the property is read from
+     * @return the property value
+     * @throws IllegalAccessException    if the getter is not accessible
+     * @throws InvocationTargetException if the getter throws an exception
+     */
+    Object get(Object bean) throws IllegalAccessException, InvocationTargetException {
+        return getter.invoke(bean);
+    }
+
+    /**
+     * @return {@link #INT}, {@link #LONG} or {@link #DOUBLE} if the getter
+     *         returns a primitive that {@link #getInt(Object)},
+     *         {@link #getLong(Object)} or {@link #getDouble(Object)} can read,
+     *         {@link #NOT_PRIMITIVE} otherwise
+     */
+    int getPrimitiveKind() {
+        return primitiveKind;
+    }
+
+    /**
+     * Invokes an {@link #INT} getter on the given bean. Method handle and
+     * lambda accessors do it without boxing; reflective ones unbox the result
+     * of {@link Method#invoke(Object, Object...)}.
+     *
+     * @param bean the object the property is read from
+     * @return the property value
+     * @throws IllegalAccessException    if the getter is not accessible
+     * @throws InvocationTargetException if the getter throws an exception
+     */
+    int getInt(Object bean) throws IllegalAccessException, InvocationTargetException {
+        if (primitive == null) {
+            return ((Number) get(bean)).intValue();
+        }
+        try {
+            return (int) primitive.invokeExact(bean);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    /**
+     * Invokes a {@link #LONG} getter on the given bean.
+     *
+     * @param bean the object the property is read from
+     * @return the property value
+     * @throws IllegalAccessException    if the getter is not accessible
+     * @throws InvocationTargetException if the getter throws an exception
+     * @see #getInt(Object)
+     */
+    long getLong(Object bean) throws IllegalAccessException, InvocationTargetException {
+        if (primitive == null) {
+            return ((Number) get(bean)).longValue();
+        }
+        try {
+            return (long) primitive.invokeExact(bean);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    /**
+     * Invokes a {@link #DOUBLE} getter on the given bean.
+     *
+     * @param bean the object the property is read from
+     * @return the property value
+     * @throws IllegalAccessException    if the getter is not accessible
+     * @throws InvocationTargetException if the getter throws an exception
+     * @see #getInt(Object)
+     */
+    double getDouble(Object bean) throws IllegalAccessException, InvocationTargetException {
+        if (primitive == null) {
+            return ((Number) get(bean)).doubleValue();
+        }
+        try {
+            return (double) primitive.invokeExact(bean);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    private static final class MethodHandleAccessor extends PropertyAccessor {
+
+        private final MethodHandle handle;
+
+        private MethodHandleAccessor(Method getter, MethodHandle handle, MethodHandle primitive) {
+            super(getter, primitive);
+            this.handle = handle;
+        }
+
+        @Override
+        Object get(Object bean) throws InvocationTargetException {
+            try {
+                return (Object) handle.invokeExact(bean);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+    }
+
+    private static final class LambdaAccessor extends PropertyAccessor {
+
+        private final Function<Object, Object> function;
+
+        private LambdaAccessor(Method getter, Function<Object, Object> function, MethodHandle primitive) {
+            super(getter, primitive);
+            this.function = function;
+        }
+
+        @Override
+        Object get(Object bean) throws InvocationTargetException {
+            try {
+                return function.apply(bean);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package io.github.moraesdelima.templateengine;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrent cache of {@link PropertyAccessor}s keyed by bean class and
+ * property name.
+ * <p>
+ * Getters are looked up by reflection only the first time a (class, property)
+ * pair is seen; missing getters are cached as well, so steady-state
+ * resolution is a map lookup per path segment. Using a {@link ClassValue}
+ * keeps the cache from pinning classes loaded by other class loaders.
+ *
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+final class PropertyAccessors {
+
+    private static final PropertyAccessors REFLECTION = new PropertyAccessors(TemplateEngine.REFLECTION_ACCESSORS);
+    private static final PropertyAccessors METHOD_HANDLES = new PropertyAccessors(TemplateEngine.METHOD_HANDLE_ACCESSORS);
+    private static final PropertyAccessors LAMBDAS = new PropertyAccessors(TemplateEngine.LAMBDA_ACCESSORS);
+    private static final PropertyAccessor MISSING = new PropertyAccessor(null);
+
+    private final int strategy;
+
+    private final ClassValue<ConcurrentHashMap<String, PropertyAccessor>> byClass = new ClassValue<>() {
+        @Override
+        protected ConcurrentHashMap<String, PropertyAccessor> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private PropertyAccessors(int strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * Returns the accessors shared by every engine using the given strategy.
+     *
+     * @param strategy one of {@link TemplateEngine#REFLECTION_ACCESSORS},
+     *                 {@link TemplateEngine#METHOD_HANDLE_ACCESSORS} or
+     *                 {@link TemplateEngine#LAMBDA_ACCESSORS}
+     * @return the accessor cache of the strategy
+     * @throws IllegalArgumentException if the strategy is unknown
+     */
+    static PropertyAccessors forStrategy(int strategy) {
+        switch (strategy) {
+            case TemplateEngine.REFLECTION_ACCESSORS:
+                return REFLECTION;
+            case TemplateEngine.METHOD_HANDLE_ACCESSORS:
+                return METHOD_HANDLES;
+            case TemplateEngine.LAMBDA_ACCESSORS:
+                return LAMBDAS;
+            default:
+                throw new IllegalArgumentException("unknown accessor strategy: " + strategy);
+        }
+    }
+
+    /**
+     * Returns the accessor of the given property, resolving the getter on the
+     * first call.
+     *
+     * @param beanClass the class declaring (or inheriting) the getter
+     * @param property  the property name
+     * @return the accessor, or {@code null} if the class has no such getter
+     */
+    PropertyAccessor get(Class<?> beanClass, String property) {
+        ConcurrentHashMap<String, PropertyAccessor> accessors = byClass.get(beanClass);
+        PropertyAccessor accessor = accessors.get(property);
+        if (accessor == null) {
+            accessor = accessors.computeIfAbsent(property, name -> resolve(beanClass, name));
+        }
+        return accessor == MISSING ? null : accessor;
+    }
+
+    /**
+     * Finds the {@code getXxx()} getter of the property, falling back to
+     * {@code isXxx()} for booleans.
+     */
+    private PropertyAccessor resolve(Class<?> beanClass, String property) {
+        if (property.isEmpty()) {
+            return MISSING;
+        }
+        String capitalized = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        Method getter = findGetter(beanClass, "get" + capitalized);
+        if (getter == null) {
+            getter = findGetter(beanClass, "is" + capitalized);
+        }
+        if (getter == null) {
+            return MISSING;
+        }
+        switch (strategy) {
+            case TemplateEngine.METHOD_HANDLE_ACCESSORS:
+                return PropertyAccessor.methodHandle(getter);
+            case TemplateEngine.LAMBDA_ACCESSORS:
+                return PropertyAccessor.lambda(getter);
+            default:
+                return new PropertyAccessor(getter);
+        }
+    }
+
+    /**
+     * Looks up a public, non-static, no-argument method that returns a value.
+     */
+    private static Method findGetter(Class<?> beanClass, String name) {
+        try {
+            Method method = beanClass.getMethod(name);
+            if (method.getReturnType() == void.class || Modifier.isStatic(method.getModifiers())) {
+                return null;
+            }
+            return method;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
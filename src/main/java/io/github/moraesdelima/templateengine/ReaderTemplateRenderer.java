@@ -0,0 +1,132 @@
+package io.github.moraesdelima.templateengine;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Renders a template read from a {@link Reader} in fixed-size chunks, without
+ * ever holding the whole template in memory.
+ * <p>
+ * Each chunk is scanned by a resumable {@link TemplateParser}: a placeholder
+ * or escape sequence cut by the end of the chunk is left unconsumed and moved
+ * to the start of the buffer, in front of the next chunk. The buffer only
+ * grows when a single placeholder is longer than the chunk, so memory use is
+ * bounded by the chunk size plus the longest placeholder. A placeholder
+ * longer than {@link TemplateEngine#MAX_PLACEHOLDER_LENGTH}, such as a
+ * {@code ${} that is never closed, fails with a
+ * {@link TemplateParseException} instead of growing the buffer further.
+ * <p>
+ * A {@link RenderListener} is told the total time spent parsing and the time
+ * spent rendering, with the number of characters written. Since the template
+ * text is never held in full, both events report {@link #TEMPLATE_NAME} as
+ * the template.
+ *
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+final class ReaderTemplateRenderer {
+
+    /** The template reported to the {@link RenderListener} for Reader renders. */
+    static final String TEMPLATE_NAME = "<reader>";
+
+    private ReaderTemplateRenderer() {
+    }
+
+    /**
+     * Renders the template read from the reader into the output. The reader
+     * is read to its end but not closed.
+     *
+     * @param engine            the engine resolving the placeholders
+     * @param template          the source of the template text
+     * @param bean              the Java Bean object containing the property values
+     * @param serializationType the type of serialization to be used
+     * @param out               the destination of the rendered template
+     * @param chunkSize         the number of characters read at a time
+     * @throws GetPropertyException       if the value of a property cannot be obtained
+     * @throws SerializePropertyException if an error occurs during serialization
+     * @throws FormatterNotFoundException if the template references a formatter
+     *                                    that has not been registered
+     * @throws TemplateParseException     if the template contains a malformed placeholder
+     * @throws IOException                if reading the template or writing the output fails
+     */
+    static void render(TemplateEngine engine, Reader template, Object bean, int serializationType,
+            Appendable out, int chunkSize)
+            throws GetPropertyException, SerializePropertyException, FormatterNotFoundException,
+            TemplateParseException, IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunk size must be positive");
+        }
+        RenderListener listener = engine.getListener();
+        if (listener == null) {
+            render(engine, template, bean, serializationType, out, chunkSize, null);
+            return;
+        }
+        long start = System.nanoTime();
+        long[] parseNanos = new long[1];
+        CountingAppendable counting = new CountingAppendable(out);
+        render(engine, template, bean, serializationType, counting, chunkSize, parseNanos);
+        listener.templateCompiled(TEMPLATE_NAME, parseNanos[0]);
+        listener.templateRendered(TEMPLATE_NAME, System.nanoTime() - start - parseNanos[0], counting.getCount());
+    }
+
+    /**
+     * Reads, parses and renders the template chunk by chunk.
+     *
+     * @param parseNanos receives the time spent parsing, or {@code null} when
+     *                   it is not measured
+     */
+    private static void render(TemplateEngine engine, Reader template, Object bean, int serializationType,
+            Appendable out, int chunkSize, long[] parseNanos)
+            throws GetPropertyException, SerializePropertyException, FormatterNotFoundException,
+            TemplateParseException, IOException {
+        TemplateParser parser = new TemplateParser(TemplateEngine.MAX_PLACEHOLDER_LENGTH);
+        Writer literals = AppendableWriter.of(out);
+        List<Object> segments = new ArrayList<>();
+        TemplateParser.Handler<FormatterNotFoundException> handler = new TemplateParser.Handler<>() {
+            @Override
+            public void literal(CharSequence text, int start, int end) {
+                segments.add(new int[] { start, end });
+            }
+
+            @Override
+            public void placeholder(String path, String formatterName) throws FormatterNotFoundException {
+                segments.add(engine.bindPlaceholder(path, formatterName, serializationType));
+            }
+        };
+        PathValues values = new PathValues(engine.getAccessors(), bean);
+        char[] buffer = new char[chunkSize];
+        int length = 0;
+        boolean last = false;
+        while (!last) {
+            if (length == buffer.length) {
+                // a single placeholder is longer than the buffer
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            int read = template.read(buffer, length, buffer.length - length);
+            last = read < 0;
+            if (!last) {
+                length += read;
+            }
+            long parseStart = parseNanos == null ? 0 : System.nanoTime();
+            int consumed = parser.parse(CharBuffer.wrap(buffer), 0, length, last, handler);
+            if (parseNanos != null) {
+                parseNanos[0] += System.nanoTime() - parseStart;
+            }
+            for (Object segment : segments) {
+                if (segment instanceof Placeholder) {
+                    engine.writeReplacement((Placeholder) segment, bean, values, -1, out);
+                } else {
+                    int[] region = (int[]) segment;
+                    literals.write(buffer, region[0], region[1] - region[0]);
+                }
+            }
+            segments.clear();
+            System.arraycopy(buffer, consumed, buffer, 0, length - consumed);
+            length -= consumed;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.moraesdelima.templateengine;
+
+/**
+ * Receives timing and volume measurements from a {@link TemplateEngine}, to be
+ * bridged to any metrics library.
+ * <p>
+ * A listener is installed with {@link TemplateEngine.Builder#listener(RenderListener)};
+ * engines without a listener do not read the clock at all. Every method has an
+ * empty default implementation, so a listener only overrides the events it
+ * records. Listeners are called synchronously on the rendering thread, possibly
+ * by many threads at once, and must therefore be thread-safe and fast.
+ * Durations are in nanoseconds, as measured by {@link System#nanoTime()}.
+ *
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+public interface RenderListener {
+
+    /**
+     * Called when a {@code process} method looks the template up in the
+     * template cache.
+     *
+     * @param template the template text
+     * @param hit      {@code true} if the compiled template was found in the cache
+     */
+    default void templateCacheLookup(String template, boolean hit) {
+    }
+
+    /**
+     * Called after a template is parsed by {@link TemplateEngine#compile(String, int)},
+     * either directly or on a template cache miss, and after a template file
+     * is scanned by {@link TemplateEngine#process(java.nio.file.Path, Object, int, java.nio.file.Path)}
+     * or read from a {@link java.io.Reader}.
+     *
+     * @param template the template text, the path of the template file, or
+     *                 {@code "<reader>"} for a template read from a
+     *                 {@code Reader}; never {@code null}
+     * @param nanos    the time spent parsing
+     */
+    default void templateCompiled(String template, long nanos) {
+    }
+
+    /**
+     * Called after a template is rendered successfully.
+     *
+     * @param template the template text, the path of the template file, or
+     *                 {@code "<reader>"} for a template read from a
+     *                 {@code Reader}; never {@code null}
+     * @param nanos    the time spent rendering, placeholders included
+     * @param length   the number of characters written to the output, or of
+     *                 bytes for the {@code renderUtf8} methods and for
+     *                 template files
+     */
+    default void templateRendered(String template, long nanos, long length) {
+    }
+
+    /**
+     * Called after the value of a placeholder is resolved, that is, after its
+     * getters are invoked and before it is formatted or serialized.
+     *
+     * @param path  the dot-notation path of the placeholder
+     * @param nanos the time spent resolving the value
+     */
+    default void placeholderResolved(String path, long nanos) {
+    }
+
+    /**
+     * Called after a {@link CustomFormatter} returns.
+     *
+     * @param formatterName the name the formatter was registered under
+     * @param nanos         the time spent in the formatter
+     */
+    default void formatterApplied(String formatterName, long nanos) {
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.moraesdelima.templateengine;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Outcome of rendering one bean of a batch: either the rendered output or the
+ * exception that prevented it.
+ *
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+@Getter
+@ToString
+public class RenderResult {
+
+    private final Object bean;
+    private final String output;
+    private final TemplateEngineException exception;
+
+    private RenderResult(Object bean, String output, TemplateEngineException exception) {
+        this.bean = bean;
+        this.output = output;
+        this.exception = exception;
+    }
+
+    /**
+     * @param bean   the rendered bean
+     * @param output the rendered template
+     * @return a successful result
+     */
+    public static RenderResult success(Object bean, String output) {
+        return new RenderResult(bean, output, null);
+    }
+
+    /**
+     * @param bean      the bean that could not be rendered
+     * @param exception the reason
+     * @return a failed result
+     */
+    public static RenderResult failure(Object bean, TemplateEngineException exception) {
+        return new RenderResult(bean, null, exception);
+    }
+
+    /**
+     * @return {@code true} if the bean was rendered, in which case
+     *         {@link #getOutput()} holds the result
+     */
+    public boolean isSuccess() {
+        return exception == null;
+    }
+}
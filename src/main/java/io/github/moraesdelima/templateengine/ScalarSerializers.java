@@ -0,0 +1,215 @@
+package io.github.moraesdelima.templateengine;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Direct serializers for scalar values, keyed by the exact class of the value.
+ * <p>
+ * They write the same text the default {@link TemplateEngine} Gson instance
+ * would produce, straight into the output and without intermediate Strings:
+ * the bare value in STRING_SERIALIZATION and its JSON form (quoted and
+ * escaped like Gson does, including its HTML-safe escapes) in
+ * JSON_SERIALIZATION. Classes not in the table, and values Gson rejects such
+ * as {@code NaN}, are left to Gson.
+ *
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+final class ScalarSerializers {
+
+    /**
+     * Writes a scalar value.
+     */
+    interface ScalarSerializer {
+
+        /**
+         * @param value the non-null value to be written
+         * @param json  {@code true} to write the JSON form of the value
+         * @param out   the output
+         * @return {@code false} if the value must be serialized by Gson instead
+         * @throws IOException if writing to the output fails
+         */
+        boolean write(Object value, boolean json, Appendable out) throws IOException;
+    }
+
+    private static final String[] REPLACEMENT_CHARS = new String[128];
+
+    static {
+        for (int c = 0; c < 0x20; c++) {
+            REPLACEMENT_CHARS[c] = String.format("\\u%04x", c);
+        }
+        REPLACEMENT_CHARS['"'] = "\\\"";
+        REPLACEMENT_CHARS['\\'] = "\\\\";
+        REPLACEMENT_CHARS['\t'] = "\\t";
+        REPLACEMENT_CHARS['\b'] = "\\b";
+        REPLACEMENT_CHARS['\n'] = "\\n";
+        REPLACEMENT_CHARS['\r'] = "\\r";
+        REPLACEMENT_CHARS['\f'] = "\\f";
+        // Gson is HTML-safe by default
+        REPLACEMENT_CHARS['<'] = "\\u003c";
+        REPLACEMENT_CHARS['>'] = "\\u003e";
+        REPLACEMENT_CHARS['&'] = "\\u0026";
+        REPLACEMENT_CHARS['='] = "\\u003d";
+        REPLACEMENT_CHARS['\''] = "\\u0027";
+    }
+
+    private static final ScalarSerializer TEXT = (value, json, out) -> {
+        writeText(value.toString(), json, out);
+        return true;
+    };
+
+    private static final ScalarSerializer ENUM = (value, json, out) -> {
+        writeText(((Enum<?>) value).name(), json, out);
+        return true;
+    };
+
+    private static final ScalarSerializer LITERAL = (value, json, out) -> {
+        out.append(value.toString());
+        return true;
+    };
+
+    private static final ScalarSerializer INTEGRAL = (value, json, out) -> {
+        if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(((Number) value).longValue());
+        } else {
+            out.append(value.toString());
+        }
+        return true;
+    };
+
+    private static final ScalarSerializer FLOATING = (value, json, out) -> {
+        double number = ((Number) value).doubleValue();
+        if (Double.isNaN(number) || Double.isInfinite(number)) {
+            return false;
+        }
+        if (out instanceof StringBuilder && value instanceof Double) {
+            ((StringBuilder) out).append(number);
+        } else {
+            out.append(value.toString());
+        }
+        return true;
+    };
+
+    private static final ScalarSerializer BOOLEAN = (value, json, out) -> {
+        out.append((Boolean) value ? "true" : "false");
+        return true;
+    };
+
+    private static final ClassValue<ScalarSerializer> SERIALIZERS = new ClassValue<>() {
+        @Override
+        protected ScalarSerializer computeValue(Class<?> type) {
+            return serializerFor(type);
+        }
+    };
+
+    private ScalarSerializers() {
+    }
+
+    /**
+     * @param type the exact class of a value
+     * @return the serializer of the class, or {@code null} if values of the
+     *         class must be serialized by Gson
+     */
+    static ScalarSerializer get(Class<?> type) {
+        return SERIALIZERS.get(type);
+    }
+
+    /**
+     * Writes a String as is, or as a JSON string escaped like Gson does.
+     *
+     * @param text the text to be written
+     * @param json {@code true} to write it as a JSON string
+     * @param out  the output
+     * @throws IOException if writing to the output fails
+     */
+    static void writeText(String text, boolean json, Appendable out) throws IOException {
+        if (json) {
+            writeJsonString(text, out);
+        } else {
+            out.append(text);
+        }
+    }
+
+    /**
+     * Writes the text as a quoted JSON string, escaping runs of characters in
+     * place instead of building an escaped copy.
+     *
+     * @param text the text to be written
+     * @param out  the output
+     * @throws IOException if writing to the output fails
+     */
+    static void writeJsonString(CharSequence text, Appendable out) throws IOException {
+        out.append('"');
+        int last = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            String replacement;
+            if (c < 128) {
+                replacement = REPLACEMENT_CHARS[c];
+                if (replacement == null) {
+                    continue;
+                }
+            } else if (c == '\u2028') {
+                replacement = "\\u2028";
+            } else if (c == '\u2029') {
+                replacement = "\\u2029";
+            } else {
+                continue;
+            }
+            if (last < i) {
+                out.append(text, last, i);
+            }
+            out.append(replacement);
+            last = i + 1;
+        }
+        if (last < length) {
+            out.append(text, last, length);
+        }
+        out.append('"');
+    }
+
+    private static ScalarSerializer serializerFor(Class<?> type) {
+        if (type == String.class || type == Character.class
+                || type == LocalDate.class || type == LocalDateTime.class || type == LocalTime.class) {
+            return TEXT;
+        }
+        if (type == Integer.class || type == Long.class || type == Short.class || type == Byte.class) {
+            return INTEGRAL;
+        }
+        if (type == Double.class || type == Float.class) {
+            return FLOATING;
+        }
+        if (type == BigDecimal.class || type == BigInteger.class) {
+            return LITERAL;
+        }
+        if (type == Boolean.class) {
+            return BOOLEAN;
+        }
+        if (Enum.class.isAssignableFrom(type)) {
+            Class<?> enumType = type.isEnum() ? type : type.getSuperclass();
+            return hasSerializedNames(enumType) ? null : ENUM;
+        }
+        return null;
+    }
+
+    /**
+     * Gson writes {@link SerializedName} values instead of constant names, so
+     * such enums are left to Gson.
+     */
+    private static boolean hasSerializedNames(Class<?> enumType) {
+        for (Field field : enumType.getDeclaredFields()) {
+            if (field.isEnumConstant() && field.isAnnotationPresent(SerializedName.class)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
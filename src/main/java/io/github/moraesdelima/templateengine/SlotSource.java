@@ -0,0 +1,18 @@
+package io.github.moraesdelima.templateengine;
+
+/**
+ * Supplies the values of a {@link SlotTemplate} by slot index, for callers
+ * that keep their values in a structure other than an {@code Object[]}.
+ *
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+@FunctionalInterface
+public interface SlotSource {
+
+    /**
+     * @param slot the index of a path declared in
+     *             {@link TemplateEngine#compileSlots(String, int, String...)}
+     * @return the value of the path, possibly {@code null}
+     */
+    Object get(int slot);
+}
@@ -0,0 +1,202 @@
+package io.github.moraesdelima.templateengine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A template compiled by {@link TemplateEngine#compileSlots(String, int, String...)}
+ * against a declared list of paths, and rendered from the values of those
+ * paths instead of a Java Bean object.
+ * <p>
+ * Each placeholder is bound at compile time to the slot of its path, the
+ * index of the path in the declared list, so rendering only reads
+ * {@code slots[slot]} and applies the formatters and the serialization of
+ * the placeholder. The values are used as they are: no getter is invoked and
+ * no {@code Map} is searched, even when a path has dots. Instances are
+ * immutable and can be shared freely between threads.
+ *
+ * <pre>{@code
+ * SlotTemplate sms = engine.compileSlots("Olá ${nome}, seu código é ${codigo}", "nome", "codigo");
+ * sms.render(new Object[] { "Maria", 4821 });
+ * }</pre>
+ *
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+public final class SlotTemplate {
+
+    private final TemplateEngine engine;
+    private final String template;
+    private final int serializationType;
+    private final String[] literals;
+    private final Placeholder[] placeholders;
+    private final int[] slots;
+    private final List<String> paths;
+    private final Map<String, Integer> slotsByPath;
+    private final int literalLength;
+
+    SlotTemplate(TemplateEngine engine, CompiledTemplate compiled, String[] paths) throws GetPropertyException {
+        this.engine = engine;
+        this.template = compiled.getTemplate();
+        this.serializationType = compiled.getSerializationType();
+        this.literals = compiled.getLiterals();
+        this.placeholders = compiled.getPlaceholders();
+        this.paths = Collections.unmodifiableList(Arrays.asList(paths.clone()));
+        this.slotsByPath = new HashMap<>();
+        for (int i = 0; i < paths.length; i++) {
+            if (slotsByPath.putIfAbsent(paths[i], i) != null) {
+                throw new IllegalArgumentException("Path declared twice: " + paths[i]);
+            }
+        }
+        this.slots = new int[placeholders.length];
+        for (int i = 0; i < placeholders.length; i++) {
+            Integer slot = slotsByPath.get(placeholders[i].getPath());
+            if (slot == null) {
+                throw new GetPropertyException(placeholders[i].getPath(), Object[].class);
+            }
+            slots[i] = slot;
+        }
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * @return the original template text
+     */
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return the serialization type the template was compiled with (either
+     *         {@link TemplateEngine#STRING_SERIALIZATION} or
+     *         {@link TemplateEngine#JSON_SERIALIZATION})
+     */
+    public int getSerializationType() {
+        return serializationType;
+    }
+
+    /**
+     * @return the declared paths, in slot order
+     */
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    /**
+     * @param path a dot-notation path
+     * @return the slot of the path, or {@code -1} if it was not declared
+     */
+    public int slotOf(String path) {
+        Integer slot = slotsByPath.get(path);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Replaces all placeholders of this template with the values of their
+     * slots.
+     *
+     * @param values the values of the declared paths, in slot order
+     * @return the template with all placeholders replaced with their respective values
+     * @throws SerializePropertyException if an error occurs during serialization
+     * @throws IllegalArgumentException   if there are fewer values than declared paths
+     */
+    public String render(Object[] values) throws SerializePropertyException {
+        StringBuilder result = new StringBuilder(literalLength + 16 * placeholders.length);
+        try {
+            render(values, result);
+        } catch (IOException e) {
+            // StringBuilder never throws IOException
+            throw new UncheckedIOException(e);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Replaces all placeholders of this template with the values of their
+     * slots, writing the result straight into the given output.
+     * <p>
+     * If an exception is thrown, the output may already contain the part of
+     * the template rendered before the failing placeholder.
+     *
+     * @param values the values of the declared paths, in slot order
+     * @param out    the destination of the rendered template
+     * @throws SerializePropertyException if an error occurs during serialization
+     * @throws IllegalArgumentException   if there are fewer values than declared paths
+     * @throws IOException                if writing to the output fails
+     */
+    public void render(Object[] values, Appendable out) throws SerializePropertyException, IOException {
+        if (values.length < paths.size()) {
+            throw new IllegalArgumentException("Expected " + paths.size() + " slot values, got " + values.length);
+        }
+        render(values, null, out);
+    }
+
+    /**
+     * Replaces all placeholders of this template with the values supplied
+     * for their slots.
+     *
+     * @param source supplies the values of the declared paths by slot
+     * @return the template with all placeholders replaced with their respective values
+     * @throws SerializePropertyException if an error occurs during serialization
+     */
+    public String render(SlotSource source) throws SerializePropertyException {
+        StringBuilder result = new StringBuilder(literalLength + 16 * placeholders.length);
+        try {
+            render(source, result);
+        } catch (IOException e) {
+            // StringBuilder never throws IOException
+            throw new UncheckedIOException(e);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Replaces all placeholders of this template with the values supplied
+     * for their slots, writing the result straight into the given output.
+     * The source is asked once for each placeholder.
+     *
+     * @param source supplies the values of the declared paths by slot
+     * @param out    the destination of the rendered template
+     * @throws SerializePropertyException if an error occurs during serialization
+     * @throws IOException                if writing to the output fails
+     */
+    public void render(SlotSource source, Appendable out) throws SerializePropertyException, IOException {
+        render(null, source, out);
+    }
+
+    /**
+     * Renders from either the values or the source, reporting to the
+     * listener, if any.
+     */
+    private void render(Object[] values, SlotSource source, Appendable out)
+            throws SerializePropertyException, IOException {
+        RenderListener listener = engine.getListener();
+        if (listener != null) {
+            long start = System.nanoTime();
+            CountingAppendable counting = new CountingAppendable(out);
+            write(values, source, counting);
+            listener.templateRendered(template, System.nanoTime() - start, counting.getCount());
+            return;
+        }
+        write(values, source, out);
+    }
+
+    private void write(Object[] values, SlotSource source, Appendable out)
+            throws SerializePropertyException, IOException {
+        Object owner = values != null ? values : source;
+        for (int i = 0; i < placeholders.length; i++) {
+            out.append(literals[i]);
+            Object value = values != null ? values[slots[i]] : source.get(slots[i]);
+            engine.writeValue(placeholders[i], owner, value, out);
+        }
+        out.append(literals[placeholders.length]);
+    }
+}
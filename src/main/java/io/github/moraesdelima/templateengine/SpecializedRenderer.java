@@ -0,0 +1,38 @@
+package io.github.moraesdelima.templateengine;
+
+/**
+ * Getters of every node of the {@link PathTree} of a {@link CompiledTemplate},
+ * bound to one bean class.
+ * <p>
+ * Only beans whose class is exactly {@link #getBeanClass()} may be rendered
+ * with these getters; the compiled template falls back to the generic path
+ * for any other class.
+ *
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+final class SpecializedRenderer {
+
+    private final Class<?> beanClass;
+    private final PropertyAccessor[] accessors;
+
+    SpecializedRenderer(TemplateEngine engine, Class<?> beanClass, PathTree tree) {
+        this.beanClass = beanClass;
+        this.accessors = engine.nodeAccessors(beanClass, tree);
+    }
+
+    /**
+     * @return the bean class the getters were resolved for
+     */
+    Class<?> getBeanClass() {
+        return beanClass;
+    }
+
+    /**
+     * @param node a node of the path tree
+     * @return the pre-resolved getter of the node, or {@code null} if it must
+     *         be resolved at render time
+     */
+    PropertyAccessor accessor(int node) {
+        return accessors[node];
+    }
+}
@@ -1,21 +1,34 @@
 package io.github.moraesdelima.templateengine;
 
-import java.beans.IntrospectionException;
-import java.beans.PropertyDescriptor;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSerializer;
+import com.google.gson.stream.JsonWriter;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -31,8 +44,22 @@ public class TemplateEngine {
 
     public static final int STRING_SERIALIZATION = 0;
     public static final int JSON_SERIALIZATION = 1;
-    private final Map<String, CustomFormatter> formatters = new HashMap<>();
-    Gson gson = new GsonBuilder()
+    /** Reads properties through {@code java.lang.reflect.Method#invoke}. */
+    public static final int REFLECTION_ACCESSORS = 0;
+    /** Reads properties through {@code java.lang.invoke.MethodHandle}s. */
+    public static final int METHOD_HANDLE_ACCESSORS = 1;
+    /** Reads properties through {@code java.util.function.Function}s spun by {@code LambdaMetafactory}. */
+    public static final int LAMBDA_ACCESSORS = 2;
+    /** Default maximum number of templates kept in the compiled template cache. */
+    public static final int DEFAULT_TEMPLATE_CACHE_SIZE = 256;
+    /** Default maximum sum of the lengths of the templates kept in the compiled template cache. */
+    public static final long DEFAULT_TEMPLATE_CACHE_WEIGHT = 4L * 1024 * 1024;
+    /** Number of characters read at a time by {@link #process(Reader, Object, int, Appendable)}. */
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+    /** Maximum length of a placeholder in a template read from a {@link Reader}. */
+    public static final int MAX_PLACEHOLDER_LENGTH = 64 * 1024;
+    private static final Executor DEFAULT_ASYNC_EXECUTOR = defaultAsyncExecutor();
+    private static final Gson DEFAULT_GSON = new GsonBuilder()
             .registerTypeAdapter(LocalDate.class,
                     (JsonSerializer<LocalDate>) (src, type, ctx) -> new JsonPrimitive(src.toString()))
             .registerTypeAdapter(LocalDateTime.class,
@@ -40,28 +67,142 @@ public class TemplateEngine {
             .registerTypeAdapter(LocalTime.class,
                     (JsonSerializer<LocalTime>) (src, type, ctx) -> new JsonPrimitive(src.toString()))
             .create();
+    private final AtomicReference<Map<String, CustomFormatter>> formatters;
+    private final boolean immutable;
+    private final int templateCacheSize;
+    private final long templateCacheWeight;
+    private final BoundedCache<TemplateKey, CompiledTemplate> templateCache;
+    private final int accessorStrategy;
+    private final PropertyAccessors accessors;
+    private final boolean specializedRenderers;
+    private final boolean directScalars;
+    private final RenderListener listener;
+    final Gson gson;
+
+    /**
+     * Creates an engine with a compiled template cache bounded by
+     * {@link #DEFAULT_TEMPLATE_CACHE_SIZE} templates and
+     * {@link #DEFAULT_TEMPLATE_CACHE_WEIGHT} characters.
+     * <p>
+     * Formatters may still be registered with
+     * {@link #registerFormatter(String, CustomFormatter)}; use
+     * {@link #builder()} to create an immutable engine instead.
+     */
+    public TemplateEngine() {
+        this(DEFAULT_TEMPLATE_CACHE_SIZE, DEFAULT_TEMPLATE_CACHE_WEIGHT);
+    }
+
+    /**
+     * Creates an engine whose {@code process} methods keep the parsed form of
+     * the most recently used templates in a bounded cache.
+     *
+     * @param templateCacheSize   the maximum number of cached templates, a
+     *                            template rendered with both serialization
+     *                            types counting twice; {@code 0} disables the cache
+     * @param templateCacheWeight the maximum sum of the lengths of the cached
+     *                            templates; longer templates are never cached
+     * @throws IllegalArgumentException if any of the bounds is negative
+     */
+    public TemplateEngine(int templateCacheSize, long templateCacheWeight) {
+        this(builder().templateCacheSize(templateCacheSize).templateCacheWeight(templateCacheWeight), false);
+    }
+
+    private TemplateEngine(Builder builder, boolean immutable) {
+        this.formatters = new AtomicReference<>(Collections.unmodifiableMap(new HashMap<>(builder.formatters)));
+        this.immutable = immutable;
+        this.templateCacheSize = builder.templateCacheSize;
+        this.templateCacheWeight = builder.templateCacheWeight;
+        this.templateCache = new BoundedCache<>(templateCacheSize, templateCacheWeight,
+                (key, compiled) -> key.template.length());
+        this.accessorStrategy = builder.accessorStrategy;
+        this.accessors = PropertyAccessors.forStrategy(accessorStrategy);
+        this.specializedRenderers = builder.specializedRenderers;
+        this.gson = builder.gson != null ? builder.gson : DEFAULT_GSON;
+        this.directScalars = gson == DEFAULT_GSON;
+        this.listener = builder.listener;
+    }
+
+    /**
+     * Starts the configuration of an immutable engine.
+     * <p>
+     * Engines created by the builder have a frozen formatter table and Gson
+     * instance, so a single engine can be shared by every thread. Renders
+     * never block on a template cache hit; a miss takes a short global lock
+     * to insert the compiled template and evict older ones. Use {@link #withFormatter(String, CustomFormatter)} to derive an
+     * engine with additional formatters.
+     *
+     * @return a builder with the default settings
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Derives an immutable engine with the same settings and formatters as
+     * this one plus the given formatter. This engine is left unchanged.
+     *
+     * @param name      the formatter identifier (must not be null or empty)
+     * @param formatter the formatter implementation (must not be null)
+     * @return the new engine, with an empty template cache
+     * @throws IllegalArgumentException if name is null/empty or formatter is null
+     */
+    public TemplateEngine withFormatter(String name, CustomFormatter formatter) {
+        Builder builder = builder()
+                .templateCacheSize(templateCacheSize)
+                .templateCacheWeight(templateCacheWeight)
+                .accessorStrategy(accessorStrategy)
+                .specializedRenderers(specializedRenderers);
+        builder.formatters.putAll(formatters.get());
+        builder.gson = gson == DEFAULT_GSON ? null : gson;
+        builder.listener = listener;
+        return builder.formatter(name, formatter).build();
+    }
 
     public String process(String template, Object bean)
-            throws GetPropertyException, SerializePropertyException, FormatterNotFoundException {
+            throws GetPropertyException, SerializePropertyException, FormatterNotFoundException,
+            TemplateParseException {
         return process(template, bean, STRING_SERIALIZATION);
     }
 
     /**
      * Registers a custom formatter under the given name.
      * The formatter can be referenced in templates using the syntax {@code ${path|name}}.
+     * <p>
+     * The formatter table is replaced copy-on-write, so registering is safe
+     * while other threads render, although it is meant for start-up.
      *
      * @param name      the formatter identifier (must not be null or empty)
      * @param formatter the formatter implementation (must not be null)
      * @throws IllegalArgumentException if name is null/empty or formatter is null
+     * @throws IllegalStateException    if the engine was created by {@link #builder()};
+     *                                  use {@link #withFormatter(String, CustomFormatter)}
      */
     public void registerFormatter(String name, CustomFormatter formatter) {
+        validateFormatter(name, formatter);
+        if (immutable) {
+            throw new IllegalStateException("engine is immutable; use withFormatter to derive a new one");
+        }
+        Map<String, CustomFormatter> current;
+        Map<String, CustomFormatter> updated;
+        do {
+            current = formatters.get();
+            updated = new HashMap<>(current);
+            updated.put(name, formatter);
+        } while (!formatters.compareAndSet(current, Collections.unmodifiableMap(updated)));
+        // cached templates are bound to the previous formatters
+        templateCache.clear();
+    }
+
+    /**
+     * Validates the arguments of a formatter registration.
+     */
+    private static void validateFormatter(String name, CustomFormatter formatter) {
         if (name == null || name.isEmpty()) {
             throw new IllegalArgumentException("formatter name must not be null or empty");
         }
         if (formatter == null) {
             throw new IllegalArgumentException("formatter must not be null");
         }
-        formatters.put(name, formatter);
     }
 
     /**
@@ -76,162 +217,1063 @@ public class TemplateEngine {
      * @return the template with all properties replaced with their respective values
      * @throws GetPropertyException       if the value of a property cannot be obtained
      * @throws SerializePropertyException if an error occurs during serialization
+     * @throws FormatterNotFoundException if the template references a formatter
+     *                                    that has not been registered
+     * @throws TemplateParseException     if the template contains a malformed placeholder
      */
     public String process(
             String template, Object bean, int serializationType)
-            throws GetPropertyException, SerializePropertyException, FormatterNotFoundException {
-        Pattern pattern = Pattern.compile("\\$\\{([^|{}]+)(?:\\|([^}]+))?\\}");
-        Matcher matcher = pattern.matcher(template);
-        StringBuffer result = new StringBuffer();
-        while (matcher.find()) {
-            String property = matcher.group(1);
-            String formatterName = matcher.group(2);
-            String replacement;
-            if (formatterName != null) {
-                CustomFormatter formatter = formatters.get(formatterName);
-                if (formatter == null) {
-                    throw new FormatterNotFoundException(formatterName);
-                }
-                Object resolvedValue = getPropertyValue(bean, property);
-                String formattedValue = applyFormatter(formatter, property, resolvedValue, bean.getClass());
-                replacement = serializationType == JSON_SERIALIZATION
-                        ? gson.toJson(formattedValue)
-                        : formattedValue;
-            } else {
-                replacement = serializeProperty(bean, property, serializationType);
+            throws GetPropertyException, SerializePropertyException, FormatterNotFoundException,
+            TemplateParseException {
+        return cachedCompile(template, serializationType).render(bean);
+    }
+
+    /**
+     * Replaces all properties in the given template with their respective values
+     * from the given Java Bean object, writing the result straight into the
+     * given output instead of building a String.
+     *
+     * @param template          the template with properties to be replaced
+     * @param bean              the Java Bean object containing the property values
+     * @param serializationType the type of serialization to be used for the
+     *                          property values (either STRING_SERIALIZATION or
+     *                          JSON_SERIALIZATION)
+     * @param out               the destination of the rendered template, such as
+     *                          a {@link java.io.Writer} or a {@link StringBuilder}
+     * @throws GetPropertyException       if the value of a property cannot be obtained
+     * @throws SerializePropertyException if an error occurs during serialization
+     * @throws FormatterNotFoundException if the template references a formatter
+     *                                    that has not been registered
+     * @throws TemplateParseException     if the template contains a malformed placeholder
+     * @throws IOException                if writing to the output fails
+     */
+    public void process(String template, Object bean, int serializationType, Appendable out)
+            throws GetPropertyException, SerializePropertyException, FormatterNotFoundException,
+            TemplateParseException, IOException {
+        cachedCompile(template, serializationType).render(bean, out);
+    }
+
+    /**
+     * Replaces all properties in the given template with their respective values
+     * from the given Java Bean object, writing the result straight into the
+     * given stream as UTF-8 bytes.
+     * <p>
+     * The literal text of the template is encoded once and kept with the
+     * cached compiled template, so only the property values are encoded on
+     * each call.
+     *
+     * @param template          the template with properties to be replaced
+     * @param bean              the Java Bean object containing the property values
+     * @param serializationType the type of serialization to be used for the
+     *                          property values (either STRING_SERIALIZATION or
+     *                          JSON_SERIALIZATION)
+     * @param out               the destination of the rendered template; it is
+     *                          neither flushed nor closed
+     * @throws GetPropertyException       if the value of a property cannot be obtained
+     * @throws SerializePropertyException if an error occurs during serialization
+     * @throws FormatterNotFoundException if the template references a formatter
+     *                                    that has not been registered
+     * @throws TemplateParseException     if the template contains a malformed placeholder
+     * @throws IOException                if writing to the stream fails
+     * @see CompiledTemplate#renderUtf8(Object, OutputStream)
+     */
+    public void processUtf8(String template, Object bean, int serializationType, OutputStream out)
+            throws GetPropertyException, SerializePropertyException, FormatterNotFoundException,
+            TemplateParseException, IOException {
+        cachedCompile(template, serializationType).renderUtf8(bean, out);
+    }
+
+    /**
+     * Replaces all properties in the template read from the given reader,
+     * writing the result into the given output as the template is read.
+     *
+     * @param template          the source of the template text; it is read to
+     *                          its end but not closed
+     * @param bean              the Java Bean object containing the property values
+     * @param serializationType the type of serialization to be used for the
+     *                          property values (either STRING_SERIALIZATION or
+     *                          JSON_SERIALIZATION)
+     * @param out               the destination of the rendered template
+     * @throws GetPropertyException       if the value of a property cannot be obtained
+     * @throws SerializePropertyException if an error occurs during serialization
+     * @throws FormatterNotFoundException if the template references a formatter
+     *                                    that has not been registered
+     * @throws TemplateParseException     if the template contains a malformed placeholder
+     * @throws IOException                if reading the template or writing the output fails
+     * @see #process(Reader, Object, int, Appendable, int)
+     */
+    public void process(Reader template, Object bean, int serializationType, Appendable out)
+            throws GetPropertyException, SerializePropertyException, FormatterNotFoundException,
+            TemplateParseException, IOException {
+        process(template, bean, serializationType, out, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Replaces all properties in the template read from the given reader,
+     * writing the result into the given output as the template is read.
+     * <p>
+     * The template is read in chunks of {@code chunkSize} characters and never
+     * held in memory as a whole; placeholders split across two chunks are
+     * handled transparently. Memory use is bounded by the chunk size plus the
+     * longest placeholder, which may have at most
+     * {@link #MAX_PLACEHOLDER_LENGTH} characters, so an unclosed {@code ${}
+     * fails instead of buffering the rest of the template. The template is
+     * parsed on each call and never
+     * cached. If an exception is thrown, the output may already contain the
+     * part of the template rendered before the failure.
+     *
+     * @param template          the source of the template text; it is read to
+     *                          its end but not closed
+     * @param bean              the Java Bean object containing the property values
+     * @param serializationType the type of serialization to be used for the
+     *                          property values (either STRING_SERIALIZATION or
+     *                          JSON_SERIALIZATION)
+     * @param out               the destination of the rendered template
+     * @param chunkSize         the number of characters read at a time
+     * @throws GetPropertyException       if the value of a property cannot be obtained
+     * @throws SerializePropertyException if an error occurs during serialization
+     * @throws FormatterNotFoundException if the template references a formatter
+     *                                    that has not been registered
+     * @throws TemplateParseException     if the template contains a malformed placeholder
+     *                                    or a placeholder longer than
+     *                                    {@link #MAX_PLACEHOLDER_LENGTH}
+     * @throws IOException                if reading the template or writing the output fails
+     * @throws IllegalArgumentException   if chunkSize is not positive
+     */
+    public void process(Reader template, Object bean, int serializationType, Appendable out, int chunkSize)
+            throws GetPropertyException, SerializePropertyException, FormatterNotFoundException,
+            TemplateParseException, IOException {
+        ReaderTemplateRenderer.render(this, template, bean, serializationType, out, chunkSize);
+    }
+
+    /**
+     * Renders a UTF-8 template file into an output file, using
+     * STRING_SERIALIZATION.
+     *
+     * @param template the UTF-8 template file
+     * @param bean     the Java Bean object containing the property values
+     * @param output   the output file, created or truncated
+     * @throws GetPropertyException       if the value of a property cannot be obtained
+     * @throws SerializePropertyException if an error occurs during serialization
+     * @throws FormatterNotFoundException if the template references a formatter
+     *                                    that has not been registered
+     * @throws TemplateParseException     if the template contains a malformed placeholder
+     * @throws IOException                if reading the template or writing the output fails
+     * @see #process(Path, Object, int, Path)
+     */
+    public void process(Path template, Object bean, Path output)
+            throws GetPropertyException, SerializePropertyException, FormatterNotFoundException,
+            TemplateParseException, IOException {
+        process(template, bean, STRING_SERIALIZATION, output);
+    }
+
+    /**
+     * Renders a UTF-8 template file into an output file without loading
+     * either into the heap.
+     * <p>
+     * The template file is memory-mapped and scanned in place, and its literal
+     * regions are transferred to the output file by the file system; only the
+     * property values are encoded. This suits very large templates, which are
+     * parsed on each call and never cached. Error columns reported by
+     * {@link TemplateParseException} count bytes rather than characters.
+     *
+     * @param template          the UTF-8 template file, up to 2 GB
+     * @param bean              the Java Bean object containing the property values
+     * @param serializationType the type of serialization to be used for the
+     *                          property values (either STRING_SERIALIZATION or
+     *                          JSON_SERIALIZATION)
+     * @param output            the output file, created or truncated
+     * @throws GetPropertyException       if the value of a property cannot be obtained
+     * @throws SerializePropertyException if an error occurs during serialization
+     * @throws FormatterNotFoundException if the template references a formatter
+     *                                    that has not been registered
+     * @throws TemplateParseException     if the template contains a malformed placeholder
+     * @throws IOException                if reading the template or writing the output fails
+     */
+    public void process(Path template, Object bean, int serializationType, Path output)
+            throws GetPropertyException, SerializePropertyException, FormatterNotFoundException,
+            TemplateParseException, IOException {
+        MappedTemplateRenderer.render(this, template, bean, serializationType, output);
+    }
+
+    /**
+     * Renders the template off the calling thread, using STRING_SERIALIZATION,
+     * on the default asynchronous executor.
+     *
+     * @param template the template with properties to be replaced
+     * @param bean     the Java Bean object containing the property values
+     * @return a future completed with the rendered template, or exceptionally
+     *         with the exception {@link #process(String, Object, int)} would throw
+     * @see #processAsync(String, Object, int, Executor)
+     */
+    public CompletableFuture<String> processAsync(String template, Object bean) {
+        return processAsync(template, bean, STRING_SERIALIZATION, DEFAULT_ASYNC_EXECUTOR);
+    }
+
+    /**
+     * Renders the template off the calling thread on the default asynchronous
+     * executor.
+     *
+     * @param template          the template with properties to be replaced
+     * @param bean              the Java Bean object containing the property values
+     * @param serializationType the type of serialization to be used for the
+     *                          property values (either STRING_SERIALIZATION or
+     *                          JSON_SERIALIZATION)
+     * @return a future completed with the rendered template, or exceptionally
+     *         with the exception {@link #process(String, Object, int)} would throw
+     * @see #processAsync(String, Object, int, Executor)
+     */
+    public CompletableFuture<String> processAsync(String template, Object bean, int serializationType) {
+        return processAsync(template, bean, serializationType, DEFAULT_ASYNC_EXECUTOR);
+    }
+
+    /**
+     * Renders the template off the calling thread on the given executor.
+     * <p>
+     * The default executor starts one virtual thread per render when running
+     * on Java 21 or later, and is the common {@link ForkJoinPool} otherwise.
+     * Rendering holds no monitor while invoking getters or formatters, so
+     * virtual threads blocked inside them are not pinned to their carrier.
+     *
+     * @param template          the template with properties to be replaced
+     * @param bean              the Java Bean object containing the property values
+     * @param serializationType the type of serialization to be used for the
+     *                          property values (either STRING_SERIALIZATION or
+     *                          JSON_SERIALIZATION)
+     * @param executor          runs the rendering
+     * @return a future completed with the rendered template, or exceptionally
+     *         with the exception {@link #process(String, Object, int)} would throw
+     */
+    public CompletableFuture<String> processAsync(String template, Object bean, int serializationType,
+            Executor executor) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(process(template, bean, serializationType));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
             }
-            matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
+        });
+        return future;
+    }
+
+    /**
+     * Returns {@code Executors.newVirtualThreadPerTaskExecutor()} when the
+     * runtime supports virtual threads. It is looked up reflectively because
+     * the library is compiled for Java 11.
+     *
+     * @return the executor used by {@code processAsync} when none is given
+     */
+    private static Executor defaultAsyncExecutor() {
+        try {
+            return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return ForkJoinPool.commonPool();
         }
-        matcher.appendTail(result);
-        return result.toString();
     }
 
     /**
-     * Applies a registered formatter to a resolved property value.
+     * Parses the template once and renders every bean of the list in parallel
+     * on the common {@link ForkJoinPool}, using STRING_SERIALIZATION.
+     *
+     * @param template the template with properties to be replaced
+     * @param beans    the Java Bean objects to be rendered
+     * @return one result per bean, in the order of the list; beans that could
+     *         not be rendered carry their exception instead of an output
+     * @throws TemplateParseException     if the template contains a malformed placeholder
+     * @throws FormatterNotFoundException if the template references a formatter
+     *                                    that has not been registered
      */
-    private String applyFormatter(CustomFormatter formatter, String property,
-            Object resolvedValue, Class<?> beanClass)
-            throws SerializePropertyException {
+    public List<RenderResult> renderAll(String template, List<?> beans)
+            throws TemplateParseException, FormatterNotFoundException {
+        return renderAll(template, beans, STRING_SERIALIZATION, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parses the template once and renders every bean of the list in parallel
+     * on the given executor.
+     *
+     * @param template          the template with properties to be replaced
+     * @param beans             the Java Bean objects to be rendered
+     * @param serializationType the type of serialization to be used for the
+     *                          property values (either STRING_SERIALIZATION or
+     *                          JSON_SERIALIZATION)
+     * @param executor          runs the rendering, e.g. a dedicated {@link ForkJoinPool}
+     * @return one result per bean, in the order of the list; beans that could
+     *         not be rendered carry their exception instead of an output
+     * @throws TemplateParseException     if the template contains a malformed placeholder
+     * @throws FormatterNotFoundException if the template references a formatter
+     *                                    that has not been registered
+     * @see CompiledTemplate#renderAll(List, Executor)
+     */
+    public List<RenderResult> renderAll(String template, List<?> beans, int serializationType, Executor executor)
+            throws TemplateParseException, FormatterNotFoundException {
+        return cachedCompile(template, serializationType).renderAll(beans, executor);
+    }
+
+    /**
+     * Parses the template once and renders every bean of the stream in
+     * parallel on the given executor. The stream is collected before
+     * rendering starts.
+     *
+     * @param template          the template with properties to be replaced
+     * @param beans             the Java Bean objects to be rendered
+     * @param serializationType the type of serialization to be used for the
+     *                          property values (either STRING_SERIALIZATION or
+     *                          JSON_SERIALIZATION)
+     * @param executor          runs the rendering, e.g. a dedicated {@link ForkJoinPool}
+     * @return one result per bean, in encounter order; beans that could not be
+     *         rendered carry their exception instead of an output
+     * @throws TemplateParseException     if the template contains a malformed placeholder
+     * @throws FormatterNotFoundException if the template references a formatter
+     *                                    that has not been registered
+     */
+    public List<RenderResult> renderAll(String template, Stream<?> beans, int serializationType, Executor executor)
+            throws TemplateParseException, FormatterNotFoundException {
+        return renderAll(template, beans.collect(Collectors.toList()), serializationType, executor);
+    }
+
+    /**
+     * Returns the statistics of the compiled template cache used by the
+     * {@code process} methods.
+     *
+     * @return a snapshot of the hit, miss and eviction counters
+     */
+    public CacheStats getTemplateCacheStats() {
+        return templateCache.stats();
+    }
+
+    /**
+     * Returns the compiled form of the given template from the template cache,
+     * compiling and caching it on a miss.
+     *
+     * @param template          the template with properties to be replaced
+     * @param serializationType the type of serialization to be used
+     * @return the compiled template
+     * @throws TemplateParseException     if the template contains a malformed placeholder
+     * @throws FormatterNotFoundException if the template references a formatter
+     *                                    that has not been registered
+     */
+    private CompiledTemplate cachedCompile(String template, int serializationType)
+            throws TemplateParseException, FormatterNotFoundException {
+        TemplateKey key = new TemplateKey(template, serializationType);
+        CompiledTemplate compiled = templateCache.get(key);
+        if (listener != null) {
+            listener.templateCacheLookup(template, compiled != null);
+        }
+        if (compiled != null) {
+            return compiled;
+        }
+        Map<String, CustomFormatter> bound = formatters.get();
+        compiled = templateCache.put(key, compile(template, serializationType));
+        if (formatters.get() != bound) {
+            // a formatter was registered while compiling: the template may be
+            // bound to the previous table and the clear() may have run before
+            // the put, so it must not stay cached
+            templateCache.remove(key, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Parses the given template once, using STRING_SERIALIZATION, so it can be
+     * rendered many times without being scanned again.
+     *
+     * @param template the template with properties to be replaced
+     * @return the compiled template
+     * @throws TemplateParseException     if the template contains a malformed placeholder
+     * @throws FormatterNotFoundException if the template references a formatter
+     *                                    that has not been registered
+     */
+    public CompiledTemplate compile(String template) throws TemplateParseException, FormatterNotFoundException {
+        return compile(template, STRING_SERIALIZATION);
+    }
+
+    /**
+     * Parses the given template once so it can be rendered many times without
+     * being scanned again.
+     *
+     * @param template          the template with properties to be replaced
+     * @param serializationType the type of serialization to be used for the
+     *                          property values (either STRING_SERIALIZATION or
+     *                          JSON_SERIALIZATION)
+     * @return the compiled template, split into literal segments and placeholders
+     * @throws TemplateParseException     if the template contains a malformed placeholder
+     * @throws FormatterNotFoundException if the template references a formatter
+     *                                    that has not been registered
+     */
+    public CompiledTemplate compile(String template, int serializationType)
+            throws TemplateParseException, FormatterNotFoundException {
+        long start = listener == null ? 0 : System.nanoTime();
+        List<String> literals = new ArrayList<>();
+        List<Placeholder> placeholders = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        new TemplateParser().parse(template, 0, template.length(), true,
+                new TemplateParser.Handler<FormatterNotFoundException>() {
+                    @Override
+                    public void literal(CharSequence text, int start, int end) {
+                        literal.append(text, start, end);
+                    }
+
+                    @Override
+                    public void placeholder(String path, String formatterName) throws FormatterNotFoundException {
+                        literals.add(literal.toString());
+                        literal.setLength(0);
+                        placeholders.add(bindPlaceholder(path, formatterName, serializationType));
+                    }
+                });
+        literals.add(literal.toString());
+        CompiledTemplate compiled = new CompiledTemplate(this, template, serializationType,
+                literals.toArray(new String[0]), placeholders.toArray(new Placeholder[0]));
+        if (listener != null) {
+            listener.templateCompiled(template, System.nanoTime() - start);
+        }
+        return compiled;
+    }
+
+    /**
+     * Parses the given template against a declared list of paths, using
+     * STRING_SERIALIZATION.
+     *
+     * @param template the template with properties to be replaced
+     * @param paths    the paths the template may reference, one slot each
+     * @return the compiled template, rendered from slot values
+     * @throws TemplateParseException     if the template contains a malformed placeholder
+     * @throws FormatterNotFoundException if the template references a formatter
+     *                                    that has not been registered
+     * @throws GetPropertyException       if the template references a path that
+     *                                    was not declared
+     * @see #compileSlots(String, int, String...)
+     */
+    public SlotTemplate compileSlots(String template, String... paths)
+            throws TemplateParseException, FormatterNotFoundException, GetPropertyException {
+        return compileSlots(template, STRING_SERIALIZATION, paths);
+    }
+
+    /**
+     * Parses the given template against a declared list of paths, so each
+     * placeholder is bound to the index of its path in that list. The
+     * template is then rendered from an {@code Object[]} or a
+     * {@link SlotSource} holding the values in the same order, without any
+     * bean or {@code Map} lookup.
+     *
+     * @param template          the template with properties to be replaced
+     * @param serializationType the type of serialization to be used for the
+     *                          property values (either STRING_SERIALIZATION or
+     *                          JSON_SERIALIZATION)
+     * @param paths             the paths the template may reference, one slot
+     *                          each; paths may be declared and never referenced
+     * @return the compiled template, rendered from slot values
+     * @throws TemplateParseException     if the template contains a malformed placeholder
+     * @throws FormatterNotFoundException if the template references a formatter
+     *                                    that has not been registered
+     * @throws GetPropertyException       if the template references a path that
+     *                                    was not declared
+     * @throws IllegalArgumentException   if a path is declared twice
+     */
+    public SlotTemplate compileSlots(String template, int serializationType, String... paths)
+            throws TemplateParseException, FormatterNotFoundException, GetPropertyException {
+        return new SlotTemplate(this, compile(template, serializationType), paths);
+    }
+
+    /**
+     * Resolves, formats and serializes the value of a single placeholder,
+     * writing the result into the given output.
+     *
+     * @param placeholder the placeholder to be replaced
+     * @param bean        the Java Bean object containing the property value
+     * @param values      the path values of the current render, shared by the
+     *                    placeholders of the template
+     * @param node        the node of the placeholder path in {@code values}, or
+     *                    {@code -1} to walk the path of the placeholder from
+     *                    the bean
+     * @param out         the output the replacement is written to
+     * @throws GetPropertyException       if the value of the property cannot be obtained
+     * @throws SerializePropertyException if an error occurs during serialization
+     * @throws FormatterNotFoundException if the referenced formatter is not registered
+     * @throws IOException                if writing to the output fails
+     */
+    void writeReplacement(Placeholder placeholder, Object bean, PathValues values, int node, Appendable out)
+            throws GetPropertyException, SerializePropertyException, IOException {
+        CustomFormatter[] formatters = placeholder.getFormatters();
+        if (node >= 0 && placeholder.isPrimitiveCandidate() && (directScalars || formatters.length > 0)
+                && writePrimitive(placeholder, bean, values, node, out)) {
+            return;
+        }
+        writeValue(placeholder, bean, resolve(placeholder, bean, values, node), out);
+    }
+
+    /**
+     * Formats and serializes a value already resolved for a placeholder,
+     * writing the result into the given output.
+     *
+     * @param placeholder the placeholder to be replaced
+     * @param bean        the object the value was taken from, reported by exceptions
+     * @param value       the value of the placeholder path
+     * @param out         the output the replacement is written to
+     * @throws SerializePropertyException if an error occurs during serialization
+     * @throws IOException                if writing to the output fails
+     */
+    void writeValue(Placeholder placeholder, Object bean, Object value, Appendable out)
+            throws SerializePropertyException, IOException {
+        CustomFormatter[] formatters = placeholder.getFormatters();
+        if (formatters.length > 0) {
+            writeFormatted(placeholder, applyFormatters(placeholder, formatters, value, bean.getClass()), out);
+            return;
+        }
+        serializeProperty(bean, placeholder, value, placeholder.getSerializationType(), out);
+    }
+
+    /**
+     * Writes a placeholder whose path ends in a getter returning an
+     * {@code int}, {@code long} or {@code double} without boxing the value:
+     * it is passed to the matching {@link IntFormatter}, {@link LongFormatter}
+     * or {@link DoubleFormatter}, or written as is when there is no formatter.
+     *
+     * @return {@code false} if the placeholder must be written from the boxed
+     *         value instead
+     */
+    private boolean writePrimitive(Placeholder placeholder, Object bean, PathValues values, int node,
+            Appendable out) throws GetPropertyException, SerializePropertyException, IOException {
+        long start = listener == null ? 0 : System.nanoTime();
+        if (!values.readPrimitive(node)) {
+            return false;
+        }
+        int kind = values.primitiveKind(node);
+        CustomFormatter[] formatters = placeholder.getFormatters();
+        CustomFormatter formatter = formatters.length == 0 ? null : formatters[0];
+        if (formatter == null ? kind == PropertyAccessor.DOUBLE && !Double.isFinite(values.doubleValue(node))
+                : !acceptsPrimitive(formatter, kind)) {
+            // left to the boxed path, which reports the resolution
+            return false;
+        }
+        if (listener != null) {
+            listener.placeholderResolved(placeholder.getPath(), System.nanoTime() - start);
+        }
+        if (formatter == null) {
+            writePrimitiveValue(values, node, kind, out);
+            return true;
+        }
+        String property = placeholder.getPath();
+        String result;
+        start = listener == null ? 0 : System.nanoTime();
         try {
-            String result = formatter.format(property, resolvedValue);
-            return result == null ? "null" : result;
+            if (kind == PropertyAccessor.INT) {
+                result = ((IntFormatter) formatter).formatInt(property, values.intValue(node));
+            } else if (kind == PropertyAccessor.LONG) {
+                result = ((LongFormatter) formatter).formatLong(property, values.longValue(node));
+            } else {
+                result = ((DoubleFormatter) formatter).formatDouble(property, values.doubleValue(node));
+            }
         } catch (RuntimeException e) {
             throw e;
         } catch (Exception e) {
-            throw new SerializePropertyException(property, beanClass, e);
+            throw new SerializePropertyException(property, bean.getClass(), e);
+        }
+        if (listener != null) {
+            listener.formatterApplied(placeholder.getFormatterName(), System.nanoTime() - start);
+        }
+        writeFormatted(placeholder, result == null ? "null" : result, out);
+        return true;
+    }
+
+    /**
+     * Checks whether the formatter takes values of the given primitive kind
+     * without boxing.
+     */
+    private static boolean acceptsPrimitive(CustomFormatter formatter, int kind) {
+        return kind == PropertyAccessor.INT && formatter instanceof IntFormatter
+                || kind == PropertyAccessor.LONG && formatter instanceof LongFormatter
+                || kind == PropertyAccessor.DOUBLE && formatter instanceof DoubleFormatter;
+    }
+
+    /**
+     * Writes the text produced by the formatters of a placeholder: as is in
+     * STRING_SERIALIZATION, and as a JSON string in JSON_SERIALIZATION,
+     * escaped by the configured Gson instance when there is one.
+     */
+    private void writeFormatted(Placeholder placeholder, String text, Appendable out) throws IOException {
+        if (placeholder.getSerializationType() != JSON_SERIALIZATION) {
+            out.append(text);
+        } else if (directScalars) {
+            ScalarSerializers.writeJsonString(text, out);
+        } else {
+            writeJson(text, out);
+        }
+    }
+
+    /**
+     * Writes an unformatted primitive the way {@link ScalarSerializers} writes
+     * its boxed form, appending the digits straight into a
+     * {@link StringBuilder} or a {@link Utf8Output}. {@code NaN} and
+     * infinite values are left to Gson and must not be passed.
+     */
+    private static void writePrimitiveValue(PathValues values, int node, int kind, Appendable out)
+            throws IOException {
+        if (kind == PropertyAccessor.DOUBLE) {
+            double value = values.doubleValue(node);
+            if (out instanceof StringBuilder) {
+                ((StringBuilder) out).append(value);
+            } else {
+                out.append(Double.toString(value));
+            }
+            return;
+        }
+        long value = kind == PropertyAccessor.INT ? values.intValue(node) : values.longValue(node);
+        if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(value);
+        } else if (out instanceof Utf8Output) {
+            ((Utf8Output) out).writeLong(value);
+        } else {
+            out.append(Long.toString(value));
+        }
+    }
+
+    /**
+     * Creates a placeholder with its formatter chain bound to the formatters
+     * currently registered.
+     *
+     * @param path              the dot-notation path of the placeholder
+     * @param formatterName     the formatter chain, or {@code null}
+     * @param serializationType the serialization type used to render the placeholder
+     * @return the bound placeholder
+     * @throws FormatterNotFoundException if a formatter of the chain is not registered
+     */
+    Placeholder bindPlaceholder(String path, String formatterName, int serializationType)
+            throws FormatterNotFoundException {
+        String[] names = Placeholder.formatterNames(formatterName);
+        Map<String, CustomFormatter> registered = this.formatters.get();
+        CustomFormatter[] chain = new CustomFormatter[names.length];
+        for (int i = 0; i < names.length; i++) {
+            chain[i] = registered.get(names[i]);
+            if (chain[i] == null) {
+                throw new FormatterNotFoundException(names[i]);
+            }
+        }
+        return new Placeholder(path, formatterName, chain, serializationType);
+    }
+
+    /**
+     * Resolves the value of a placeholder, reporting the time spent to the
+     * listener, if any.
+     */
+    private Object resolve(Placeholder placeholder, Object bean, PathValues values, int node)
+            throws GetPropertyException {
+        if (listener == null) {
+            return node < 0 ? getPropertyValue(bean, placeholder.getSegments(), values) : values.get(node);
+        }
+        long start = System.nanoTime();
+        Object value = node < 0 ? getPropertyValue(bean, placeholder.getSegments(), values) : values.get(node);
+        listener.placeholderResolved(placeholder.getPath(), System.nanoTime() - start);
+        return value;
+    }
+
+    /**
+     * Checks whether the text of a placeholder may be reused for identical
+     * placeholders of the same render.
+     *
+     * @param placeholder the placeholder
+     * @return {@code false} if a formatter of its chain is not
+     *         {@link CustomFormatter#isDeterministic() deterministic}
+     */
+    boolean isMemoizable(Placeholder placeholder) {
+        for (CustomFormatter formatter : placeholder.getFormatters()) {
+            if (!formatter.isDeterministic()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the listener installed by the builder, or {@code null}
+     */
+    RenderListener getListener() {
+        return listener;
+    }
+
+    /**
+     * @return {@code true} if compiled templates should specialize themselves
+     *         for the class of the first bean they render
+     */
+    boolean isSpecializedRenderers() {
+        return specializedRenderers;
+    }
+
+    /**
+     * Applies the formatter chain of a placeholder to a resolved property
+     * value. Each formatter receives the result of the previous one.
+     */
+    private String applyFormatters(Placeholder placeholder, CustomFormatter[] formatters,
+            Object resolvedValue, Class<?> beanClass)
+            throws SerializePropertyException {
+        String property = placeholder.getPath();
+        Object input = resolvedValue;
+        String result = null;
+        for (int i = 0; i < formatters.length; i++) {
+            long start = listener == null ? 0 : System.nanoTime();
+            try {
+                result = formatters[i].format(property, input);
+                input = result;
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new SerializePropertyException(property, beanClass, e);
+            }
+            if (listener != null) {
+                listener.formatterApplied(placeholder.getFormatterNames()[i], System.nanoTime() - start);
+            }
         }
+        return result == null ? "null" : result;
     }
 
     /**
      * Serializes the value of the given property in the given Java Bean object
      * according to the given serialization type.
+     * <p>
+     * Scalars (Strings, boxed primitives, {@code BigDecimal}, {@code java.time}
+     * dates and enums) are written directly by {@link ScalarSerializers},
+     * unless a custom Gson instance was configured; other values are streamed
+     * through Gson.
      * 
      * @param bean              the Java Bean object containing the property value
-     * @param property          the name of the property to be serialized
+     * @param placeholder       the placeholder of the property to be serialized
+     * @param propertyValue     the resolved value of the property
      * @param serializationType the type of serialization to be used for the
      *                          property value (either STRING_SERIALIZATION or
      *                          JSON_SERIALIZATION)
-     * @return the serialized property value
-     * @throws GetPropertyException       if the value of the property cannot be
-     *                                    obtained from the Java Bean object
+     * @param out               the output the serialized value is written to
      * @throws SerializePropertyException if an error occurs during serialization of
      *                                    the property value
+     * @throws IOException                if writing to the output fails
      */
-    private String serializeProperty(
-            Object bean, String property, int serializationType)
-            throws GetPropertyException, SerializePropertyException {
-        Object propertyValue = getPropertyValue(bean, property);
+    private void serializeProperty(
+            Object bean, Placeholder placeholder, Object propertyValue, int serializationType, Appendable out)
+            throws SerializePropertyException, IOException {
 
-        String serializedProperty = null;
-        // try {
-        serializedProperty = gson.toJson(propertyValue);
-        // } catch (JsonProcessingException e) {
-        // throw new SerializePropertyException(property, bean.getClass(), e);
-        // }
+        if (propertyValue == null) {
+            out.append("null");
+            return;
+        }
 
-        if (serializationType == JSON_SERIALIZATION) {
-            return serializedProperty;
+        boolean json = serializationType == JSON_SERIALIZATION;
+        if (directScalars) {
+            ScalarSerializers.ScalarSerializer serializer = ScalarSerializers.get(propertyValue.getClass());
+            if (serializer != null && serializer.write(propertyValue, json, out)) {
+                return;
+            }
+        }
 
-        } else if (serializedProperty == null) {
-            return null;
+        if (json) {
+            writeJson(propertyValue, out);
+            return;
+        }
 
-        } else if (serializedProperty.startsWith("\"")) {
-            // After Serialization String and Date properties goes here
-            serializedProperty = serializedProperty
-                    .replaceFirst("\"", "");
-            serializedProperty = serializedProperty
-                    .substring(0, serializedProperty.length() - 1);
-            return serializedProperty;
+        JsonElement tree = gson.toJsonTree(propertyValue);
+        if (tree.isJsonPrimitive()) {
+            // Number, Boolean and String-like values without a direct serializer
+            out.append(tree.getAsString());
+            return;
+        }
+        if (tree.isJsonNull()) {
+            out.append("null");
+            return;
+        }
 
-        } else if (!serializedProperty.startsWith("{")
-                && !serializedProperty.startsWith("[")) {
-            // After Serialization Number and Boolean properties goes here
-            return serializedProperty;
+        // Object and Array properties goes here
+        throw new SerializePropertyException(placeholder.getPath(), bean.getClass(), serializationType);
 
+    }
+
+    /**
+     * Streams the JSON form of the value through a {@link JsonWriter} wrapping
+     * the output, so large objects and arrays are never built as a String.
+     *
+     * @param value the value to be serialized
+     * @param out   the output the JSON is written to
+     * @throws IOException if writing to the output fails
+     */
+    private void writeJson(Object value, Appendable out) throws IOException {
+        try {
+            gson.toJson(value, value.getClass(), gson.newJsonWriter(AppendableWriter.of(out)));
+        } catch (JsonIOException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
         }
+    }
 
-        // After Serialization Object and Array properties goes here
-        throw new SerializePropertyException(property, bean.getClass(), serializationType);
+    /**
+     * Pre-resolves the getter of every node of a path tree for the given bean
+     * class, following the declared return type of each getter.
+     * <p>
+     * A node is left unresolved (its getter is {@code null}) when it cannot
+     * be resolved statically: below a {@link Map}, a missing getter or another
+     * unresolved node. Such nodes are resolved dynamically at render time.
+     *
+     * @param beanClass the class of the root bean
+     * @param tree      the paths of a compiled template
+     * @return the getter of each node, or {@code null} for unresolved nodes
+     */
+    PropertyAccessor[] nodeAccessors(Class<?> beanClass, PathTree tree) {
+        PropertyAccessor[] nodeAccessors = new PropertyAccessor[tree.size()];
+        for (int node = 0; node < nodeAccessors.length; node++) {
+            int parent = tree.parent(node);
+            Class<?> type = parent < 0 ? beanClass
+                    : nodeAccessors[parent] == null ? null : nodeAccessors[parent].getType();
+            if (type != null && !Map.class.isAssignableFrom(type) && !Supplier.class.isAssignableFrom(type)) {
+                nodeAccessors[node] = accessors.get(type, tree.segment(node));
+            }
+        }
+        return nodeAccessors;
+    }
 
+    /**
+     * @return the getter lookup selected by the accessor strategy
+     */
+    PropertyAccessors getAccessors() {
+        return accessors;
     }
 
     /**
      * Gets the value of the given property in the given Java Bean object.
-     * 
-     * @param bean the Java Bean object containing the property value
-     * @param name the name of the property to be obtained
+     *
+     * @param bean     the Java Bean object containing the property value
+     * @param segments the dot-notation path of the property, already split
+     * @param values   the path values of the current render, which evaluate
+     *                 the {@link Supplier} values once
      * @return the value of the property
      * @throws GetPropertyException if the value of the property cannot be obtained
      *                              from the Java Bean object
      */
-    private Object getPropertyValue(Object bean, String name)
+    private Object getPropertyValue(Object bean, String[] segments, PathValues values)
             throws GetPropertyException {
+        return getPropertyValue(bean, bean.getClass(), segments, 0, values);
+    }
+
+    /**
+     * Gets the value of the given property in the given Java Bean object.
+     * <p>
+     * Getters are resolved through the shared accessor cache, so no
+     * introspection happens once a (class, property) pair has been seen. A
+     * {@link Supplier} value met along the path, from a getter or a
+     * {@code Map}, is replaced by its result.
+     * 
+     * @param bean      the Java Bean object containing the property value
+     * @param beanClass the class used to look up the getter of the first segment
+     * @param segments  the dot-notation path of the property, already split
+     * @param from      the index of the first segment to be resolved
+     * @param values    the path values of the current render, which evaluate
+     *                  the {@link Supplier} values once
+     * @return the value of the property
+     * @throws GetPropertyException if the value of the property cannot be obtained
+     *                              from the Java Bean object
+     */
+    private Object getPropertyValue(Object bean, Class<?> beanClass, String[] segments, int from,
+            PathValues values) throws GetPropertyException {
 
+        PropertyAccessors accessors = this.accessors;
         Object value = bean;
-        Class<?> beanClass = bean.getClass();
-        String[] nestedProperties = name.split("\\.");
 
-        for (String property : nestedProperties) {
+        for (int i = from; i < segments.length; i++) {
+            String property = segments[i];
 
             if (value == null) {
                 return null;
             }
 
             if (value instanceof Map) {
-                value = ((Map<?, ?>) value).get(property);
+                value = values.supplied(((Map<?, ?>) value).get(property), property, value.getClass());
                 beanClass = value != null ? value.getClass() : Object.class;
                 continue;
             }
 
-            PropertyDescriptor pd;
-            try {
-                String getterName = "get" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
-                try {
-                    pd = new PropertyDescriptor(property, beanClass, getterName, null);
-                } catch (IntrospectionException e) {
-                    // fallback para boolean: isXxx()
-                    String isGetterName = "is" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
-                    pd = new PropertyDescriptor(property, beanClass, isGetterName, null);
-                }
-            } catch (IntrospectionException e) {
-                throw new GetPropertyException(property, beanClass, e);
-            }
-
-            Method getter = pd.getReadMethod();
-            if (getter == null) {
+            PropertyAccessor accessor = accessors.get(beanClass, property);
+            if (accessor == null) {
                 throw new GetPropertyException(property, beanClass);
             }
 
             try {
-                value = getter.invoke(value);
+                Object owner = value;
+                value = accessor.get(owner);
+                if (value instanceof Supplier) {
+                    value = values.supplied(value, property, owner.getClass());
+                    beanClass = value != null ? value.getClass() : Object.class;
+                    continue;
+                }
             } catch (IllegalAccessException | InvocationTargetException e) {
                 throw new GetPropertyException(property, value.getClass(), e);
             }
 
-            beanClass = getter.getReturnType();
+            beanClass = accessor.getType();
         }
 
         return value;
     }
 
+    /**
+     * Builder of immutable {@link TemplateEngine}s.
+     */
+    public static final class Builder {
+
+        private final Map<String, CustomFormatter> formatters = new HashMap<>();
+        private int templateCacheSize = DEFAULT_TEMPLATE_CACHE_SIZE;
+        private long templateCacheWeight = DEFAULT_TEMPLATE_CACHE_WEIGHT;
+        private int accessorStrategy = REFLECTION_ACCESSORS;
+        private boolean specializedRenderers;
+        private Gson gson;
+        private RenderListener listener;
+
+        private Builder() {
+        }
+
+        /**
+         * Registers a custom formatter, referenced in templates using the
+         * syntax {@code ${path|name}}.
+         *
+         * @param name      the formatter identifier (must not be null or empty)
+         * @param formatter the formatter implementation (must not be null)
+         * @return this builder
+         * @throws IllegalArgumentException if name is null/empty or formatter is null
+         */
+        public Builder formatter(String name, CustomFormatter formatter) {
+            validateFormatter(name, formatter);
+            formatters.put(name, formatter);
+            return this;
+        }
+
+        /**
+         * @param templateCacheSize the maximum number of cached templates, a
+         *                          template rendered with both serialization
+         *                          types counting twice; {@code 0} disables
+         *                          the cache
+         * @return this builder
+         */
+        public Builder templateCacheSize(int templateCacheSize) {
+            this.templateCacheSize = templateCacheSize;
+            return this;
+        }
+
+        /**
+         * @param templateCacheWeight the maximum sum of the lengths of the
+         *                            cached templates
+         * @return this builder
+         */
+        public Builder templateCacheWeight(long templateCacheWeight) {
+            this.templateCacheWeight = templateCacheWeight;
+            return this;
+        }
+
+        /**
+         * Selects how property getters are invoked.
+         * <p>
+         * {@link #METHOD_HANDLE_ACCESSORS} and {@link #LAMBDA_ACCESSORS} avoid
+         * the argument arrays and access checks of reflective invocation and let
+         * the JIT inline property reads. Getters that are not accessible from
+         * this library (e.g. declared in non-public classes) fall back to
+         * reflection.
+         *
+         * @param accessorStrategy one of {@link #REFLECTION_ACCESSORS} (the default),
+         *                         {@link #METHOD_HANDLE_ACCESSORS} or
+         *                         {@link #LAMBDA_ACCESSORS}
+         * @return this builder
+         */
+        public Builder accessorStrategy(int accessorStrategy) {
+            this.accessorStrategy = accessorStrategy;
+            return this;
+        }
+
+        /**
+         * Enables class-specialized rendering.
+         * <p>
+         * When enabled, each compiled template binds the getter chains of its
+         * placeholders to the class of the first bean it renders, so later
+         * renders of beans of that exact class skip the per-segment getter
+         * lookups. Beans of any other class are rendered through the generic
+         * path.
+         *
+         * @param specializedRenderers {@code true} to enable specialization;
+         *                             disabled by default
+         * @return this builder
+         */
+        public Builder specializedRenderers(boolean specializedRenderers) {
+            this.specializedRenderers = specializedRenderers;
+            return this;
+        }
+
+        /**
+         * Replaces the Gson instance used to serialize values.
+         * <p>
+         * The default instance serializes {@code LocalDate},
+         * {@code LocalDateTime} and {@code LocalTime} as ISO strings; a custom
+         * instance should register equivalent adapters if needed. With a custom
+         * instance every value, scalars included, is serialized by it.
+         *
+         * @param gson the Gson instance (must not be null)
+         * @return this builder
+         * @throws IllegalArgumentException if gson is null
+         */
+        public Builder gson(Gson gson) {
+            if (gson == null) {
+                throw new IllegalArgumentException("gson must not be null");
+            }
+            this.gson = gson;
+            return this;
+        }
+
+        /**
+         * Installs a listener that receives parse, render, placeholder,
+         * formatter and template cache measurements. Without a listener the
+         * engine takes no measurements.
+         *
+         * @param listener the listener (must not be null)
+         * @return this builder
+         * @throws IllegalArgumentException if listener is null
+         */
+        public Builder listener(RenderListener listener) {
+            if (listener == null) {
+                throw new IllegalArgumentException("listener must not be null");
+            }
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * @return a new immutable engine with the configured settings
+         * @throws IllegalArgumentException if a setting is invalid
+         */
+        public TemplateEngine build() {
+            return new TemplateEngine(this, true);
+        }
+    }
+
+    /**
+     * Key of the template cache: a template is compiled separately for each
+     * serialization type.
+     */
+    private static final class TemplateKey {
+
+        private final String template;
+        private final int serializationType;
+
+        private TemplateKey(String template, int serializationType) {
+            this.template = template;
+            this.serializationType = serializationType;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof TemplateKey)) {
+                return false;
+            }
+            TemplateKey other = (TemplateKey) obj;
+            return serializationType == other.serializationType && template.equals(other.template);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * template.hashCode() + serializationType;
+        }
+    }
 }
@@ -0,0 +1,27 @@
+package io.github.moraesdelima.templateengine;
+
+import lombok.Getter;
+
+/**
+ * Exception thrown when a template contains a malformed placeholder, such as
+ * an unclosed {@code ${...} } or an empty property path.
+ *
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+@Getter
+public class TemplateParseException extends TemplateEngineException {
+
+    private static final String CAN_T_PARSE_TEMPLATE = "Can't parse template at line ";
+    private static final String COLUMN = ", column ";
+
+    private final String reason;
+    private final int line;
+    private final int column;
+
+    public TemplateParseException(String reason, int line, int column) {
+        super(CAN_T_PARSE_TEMPLATE + line + COLUMN + column + ": " + reason);
+        this.reason = reason;
+        this.line = line;
+        this.column = column;
+    }
+}
@@ -0,0 +1,252 @@
+package io.github.moraesdelima.templateengine;
+
+/**
+ * Single-pass, linear-time scanner of {@code ${path|formatter}} placeholders.
+ * <p>
+ * The grammar is:
+ * <ul>
+ * <li>{@code ${path}}, {@code ${path|formatter}} and
+ * {@code ${path|formatter|formatter...}} are placeholders; the path and the
+ * formatter names must not be empty and must not contain {@code '{'};</li>
+ * <li>{@code \${} is an escaped, literal {@code ${};</li>
+ * <li>in a run of backslashes right before {@code ${}, each {@code \\} pair
+ * is an escaped, literal backslash, and a remaining single backslash escapes
+ * the {@code ${}: {@code \\${x}} is a backslash followed by a placeholder,
+ * {@code \\\${x}} a backslash followed by the literal {@code ${x}};</li>
+ * <li>any other character, including a backslash that is not followed by
+ * {@code ${}, is literal text.</li>
+ * </ul>
+ * Text may be fed in chunks: when {@code last} is {@code false}, a construct
+ * cut by the end of the chunk (a trailing {@code $} or {@code \}, or an
+ * unclosed placeholder) is left unconsumed so the caller can prepend it to the
+ * next chunk. The parser keeps track of the line and column of the consumed
+ * text to report errors precisely, and fails when the unconsumed construct
+ * grows beyond a maximum length, so a caller buffering it stays bounded.
+ *
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+final class TemplateParser {
+
+    /**
+     * Receives the literal segments and placeholders found by the parser, in
+     * template order.
+     *
+     * @param <X> the exception the handler may throw
+     */
+    interface Handler<X extends Exception> {
+
+        /**
+         * Called for a run of literal text. Consecutive calls describe
+         * contiguous literal text, split where an escape sequence was removed.
+         *
+         * @param text  the parsed text
+         * @param start the index of the first literal character
+         * @param end   the index after the last literal character
+         * @throws X if the handler fails
+         */
+        void literal(CharSequence text, int start, int end) throws X;
+
+        /**
+         * Called for each placeholder.
+         *
+         * @param path          the dot-notation path of the placeholder
+         * @param formatterName the formatter chain, such as {@code "trim|upper"},
+         *                      or {@code null} when none was given
+         * @throws X if the handler fails
+         */
+        void placeholder(String path, String formatterName) throws X;
+    }
+
+    private final int maxPending;
+    private int line = 1;
+    private int column = 1;
+
+    /**
+     * Creates a parser for text given at once, with no limit on the length of
+     * an unconsumed construct.
+     */
+    TemplateParser() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a parser for text fed in chunks.
+     *
+     * @param maxPending the maximum length of a construct left unconsumed at
+     *                   the end of a chunk
+     */
+    TemplateParser(int maxPending) {
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Parses {@code text[start, end)}.
+     *
+     * @param <X>     the exception the handler may throw
+     * @param text    the template text
+     * @param start   the index of the first character to be parsed
+     * @param end     the index after the last character available
+     * @param last    {@code true} if no more text follows {@code end}
+     * @param handler receives the literal segments and placeholders
+     * @return the index of the first character not consumed, which is
+     *         {@code end} unless {@code last} is {@code false} and the text ends
+     *         in the middle of a placeholder or escape sequence
+     * @throws TemplateParseException if a placeholder is malformed, or if the
+     *                                unconsumed construct is longer than the
+     *                                maximum given to the constructor
+     * @throws X                      if the handler fails
+     */
+    <X extends Exception> int parse(CharSequence text, int start, int end, boolean last, Handler<X> handler)
+            throws TemplateParseException, X {
+        int literalStart = start;
+        int i = start;
+        while (i < end) {
+            char c = text.charAt(i);
+            if (c == '\\') {
+                int run = i + 1;
+                while (run < end && text.charAt(run) == '\\') {
+                    run++;
+                }
+                if (run + 1 >= end && !last && isPrefixOfOpening(text, run, end)) {
+                    return stop(text, start, literalStart, i, end, handler);
+                }
+                if (run + 1 < end && text.charAt(run) == '$' && text.charAt(run + 1) == '{') {
+                    // escapes: keep one backslash per pair, drop the odd one
+                    int backslashes = run - i;
+                    if (literalStart < i + backslashes / 2) {
+                        handler.literal(text, literalStart, i + backslashes / 2);
+                    }
+                    literalStart = run;
+                    // an odd backslash keeps "${" as literal text
+                    i = backslashes % 2 == 0 ? run : run + 2;
+                    continue;
+                }
+                i = run;
+            } else if (c == '$') {
+                if (i + 1 >= end) {
+                    if (!last) {
+                        return stop(text, start, literalStart, i, end, handler);
+                    }
+                    i++;
+                    continue;
+                }
+                if (text.charAt(i + 1) != '{') {
+                    i++;
+                    continue;
+                }
+                int close = findClose(text, start, i, end);
+                if (close < 0) {
+                    if (!last) {
+                        return stop(text, start, literalStart, i, end, handler);
+                    }
+                    throw error(text, start, i, "unclosed placeholder");
+                }
+                if (literalStart < i) {
+                    handler.literal(text, literalStart, i);
+                }
+                placeholder(text, start, i + 2, close, handler);
+                i = close + 1;
+                literalStart = i;
+            } else {
+                i++;
+            }
+        }
+        if (literalStart < end) {
+            handler.literal(text, literalStart, end);
+        }
+        if (!last) {
+            advance(text, start, end);
+        }
+        return end;
+    }
+
+    /**
+     * Checks whether {@code text[from, end)} is a prefix of {@code "${"}.
+     */
+    private static boolean isPrefixOfOpening(CharSequence text, int from, int end) {
+        return from >= end || text.charAt(from) == '$' && (from + 1 >= end || text.charAt(from + 1) == '{');
+    }
+
+    /**
+     * Returns the index of the {@code '}'} closing the placeholder opened at
+     * {@code open}, or {@code -1} if the text ends first.
+     */
+    private int findClose(CharSequence text, int start, int open, int end) throws TemplateParseException {
+        for (int j = open + 2; j < end; j++) {
+            char c = text.charAt(j);
+            if (c == '}') {
+                return j;
+            }
+            if (c == '{') {
+                throw error(text, start, j, "unexpected '{' inside placeholder");
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Splits the body of a placeholder into path and formatter chain.
+     */
+    private <X extends Exception> void placeholder(CharSequence text, int start, int bodyStart, int bodyEnd,
+            Handler<X> handler) throws TemplateParseException, X {
+        int bar = bodyEnd;
+        for (int j = bodyStart; j < bodyEnd; j++) {
+            if (text.charAt(j) == '|') {
+                bar = j;
+                break;
+            }
+        }
+        if (bar == bodyStart) {
+            throw error(text, start, bodyStart, "empty property path");
+        }
+        String path = text.subSequence(bodyStart, bar).toString();
+        String formatterName = null;
+        if (bar < bodyEnd) {
+            for (int j = bar; j < bodyEnd; j++) {
+                if (text.charAt(j) == '|' && (j + 1 == bodyEnd || text.charAt(j + 1) == '|')) {
+                    throw error(text, start, j + 1, "empty formatter name");
+                }
+            }
+            formatterName = text.subSequence(bar + 1, bodyEnd).toString();
+        }
+        handler.placeholder(path, formatterName);
+    }
+
+    /**
+     * Flushes the pending literal and stops before an incomplete construct,
+     * unless the construct is already longer than the maximum.
+     */
+    private <X extends Exception> int stop(CharSequence text, int start, int literalStart, int at, int end,
+            Handler<X> handler) throws TemplateParseException, X {
+        if (end - at > maxPending) {
+            throw error(text, start, at, "placeholder longer than " + maxPending + " characters");
+        }
+        if (literalStart < at) {
+            handler.literal(text, literalStart, at);
+        }
+        advance(text, start, at);
+        return at;
+    }
+
+    /**
+     * Moves the tracked line and column over {@code text[from, to)}.
+     */
+    private void advance(CharSequence text, int from, int to) {
+        for (int j = from; j < to; j++) {
+            if (text.charAt(j) == '\n') {
+                line++;
+                column = 1;
+            } else {
+                column++;
+            }
+        }
+    }
+
+    /**
+     * Creates the exception for a malformed construct at {@code text[at]}.
+     */
+    private TemplateParseException error(CharSequence text, int start, int at, String reason) {
+        advance(text, start, at);
+        return new TemplateParseException(reason, line, column);
+    }
+}
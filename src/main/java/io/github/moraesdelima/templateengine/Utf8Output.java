@@ -0,0 +1,240 @@
+package io.github.moraesdelima.templateengine;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link Appendable} that encodes the characters appended to it as UTF-8
+ * bytes, and also accepts bytes that are already encoded, such as the
+ * pre-encoded literal segments of a {@link CompiledTemplate}.
+ * <p>
+ * Unpaired surrogates are encoded as {@code '?'}, like
+ * {@link String#getBytes(java.nio.charset.Charset)} does. {@link #finish()}
+ * must be called once everything has been written.
+ *
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+abstract class Utf8Output implements Appendable {
+
+    private char pendingHighSurrogate;
+    private long count;
+
+    /**
+     * @param out the destination of the bytes
+     * @return an output that buffers the bytes before writing them to the stream
+     */
+    static Utf8Output of(OutputStream out) {
+        return new StreamOutput(out);
+    }
+
+    /**
+     * @param out the destination of the bytes; a
+     *            {@link java.nio.BufferOverflowException} is thrown if it fills up
+     * @return an output that puts the bytes straight into the buffer
+     */
+    static Utf8Output of(ByteBuffer out) {
+        return new BufferOutput(out);
+    }
+
+    /**
+     * @return the number of bytes written so far
+     */
+    long getCount() {
+        return count;
+    }
+
+    /**
+     * Writes bytes that are already UTF-8 encoded.
+     *
+     * @param bytes the encoded bytes
+     * @throws IOException if writing to the destination fails
+     */
+    void write(byte[] bytes) throws IOException {
+        flushPendingSurrogate();
+        put(bytes, 0, bytes.length);
+        count += bytes.length;
+    }
+
+    /**
+     * Writes the decimal digits of a number, as {@link Long#toString(long)}
+     * would, without creating the String.
+     *
+     * @param value the number
+     * @throws IOException if writing to the destination fails
+     */
+    void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            append(Long.toString(value));
+            return;
+        }
+        flushPendingSurrogate();
+        if (value < 0) {
+            put((byte) '-');
+            count++;
+            value = -value;
+        }
+        long divisor = 1;
+        while (divisor <= value / 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            put((byte) ('0' + value / divisor % 10));
+            count++;
+        }
+    }
+
+    /**
+     * Writes whatever is still buffered to the destination.
+     *
+     * @throws IOException if writing to the destination fails
+     */
+    void finish() throws IOException {
+        flushPendingSurrogate();
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) throws IOException {
+        CharSequence text = csq == null ? "null" : csq;
+        return append(text, 0, text.length());
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) throws IOException {
+        CharSequence text = csq == null ? "null" : csq;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80 && pendingHighSurrogate == 0) {
+                put((byte) c);
+                count++;
+            } else {
+                append(c);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public Appendable append(char c) throws IOException {
+        if (pendingHighSurrogate != 0) {
+            char high = pendingHighSurrogate;
+            pendingHighSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                int codePoint = Character.toCodePoint(high, c);
+                put((byte) (0xF0 | codePoint >> 18));
+                put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                put((byte) (0x80 | codePoint & 0x3F));
+                count += 4;
+                return this;
+            }
+            put((byte) '?');
+            count++;
+        }
+        if (c < 0x80) {
+            put((byte) c);
+            count++;
+        } else if (c < 0x800) {
+            put((byte) (0xC0 | c >> 6));
+            put((byte) (0x80 | c & 0x3F));
+            count += 2;
+        } else if (Character.isHighSurrogate(c)) {
+            pendingHighSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            put((byte) '?');
+            count++;
+        } else {
+            put((byte) (0xE0 | c >> 12));
+            put((byte) (0x80 | c >> 6 & 0x3F));
+            put((byte) (0x80 | c & 0x3F));
+            count += 3;
+        }
+        return this;
+    }
+
+    /**
+     * Encodes a high surrogate left without its low surrogate.
+     */
+    private void flushPendingSurrogate() throws IOException {
+        if (pendingHighSurrogate != 0) {
+            pendingHighSurrogate = 0;
+            put((byte) '?');
+            count++;
+        }
+    }
+
+    abstract void put(byte b) throws IOException;
+
+    abstract void put(byte[] bytes, int offset, int length) throws IOException;
+
+    /**
+     * Buffers the bytes so the stream is written in blocks rather than one
+     * byte at a time.
+     */
+    private static final class StreamOutput extends Utf8Output {
+
+        private final OutputStream out;
+        private final byte[] buffer = new byte[1024];
+        private int position;
+
+        StreamOutput(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        void put(byte b) throws IOException {
+            if (position == buffer.length) {
+                drain();
+            }
+            buffer[position++] = b;
+        }
+
+        @Override
+        void put(byte[] bytes, int offset, int length) throws IOException {
+            if (length > buffer.length - position) {
+                drain();
+                if (length > buffer.length) {
+                    out.write(bytes, offset, length);
+                    return;
+                }
+            }
+            System.arraycopy(bytes, offset, buffer, position, length);
+            position += length;
+        }
+
+        @Override
+        void finish() throws IOException {
+            super.finish();
+            drain();
+        }
+
+        private void drain() throws IOException {
+            if (position > 0) {
+                out.write(buffer, 0, position);
+                position = 0;
+            }
+        }
+    }
+
+    /**
+     * Puts the bytes straight into a {@link ByteBuffer}.
+     */
+    private static final class BufferOutput extends Utf8Output {
+
+        private final ByteBuffer out;
+
+        BufferOutput(ByteBuffer out) {
+            this.out = out;
+        }
+
+        @Override
+        void put(byte b) {
+            out.put(b);
+        }
+
+        @Override
+        void put(byte[] bytes, int offset, int length) {
+            out.put(bytes, offset, length);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package io.github.moraesdelima.templateengine;
+
+import lombok.Data;
+
+@Data
+public class Conta {
+    private int numero;
+    private long limite;
+    private double saldo;
+    private float taxa;
+}
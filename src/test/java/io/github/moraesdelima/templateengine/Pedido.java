@@ -0,0 +1,12 @@
+package io.github.moraesdelima.templateengine;
+
+import java.util.function.Supplier;
+
+import lombok.Data;
+
+@Data
+public class Pedido {
+    private String numero;
+    private Supplier<Cliente> cliente;
+    private Supplier<Double> total;
+}
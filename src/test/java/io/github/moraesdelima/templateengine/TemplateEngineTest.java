@@ -3,14 +3,44 @@ package io.github.moraesdelima.templateengine;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import com.google.gson.GsonBuilder;
 
 import org.junit.After;
 import org.junit.Before;
@@ -637,4 +667,1289 @@ public class TemplateEngineTest {
         assertEquals("\"JOÃO\"", result);
     }
 
+    // --- compiled template tests ---
+
+    @Test
+    public void test_compiled_template_renders_many_beans() throws Exception {
+        CompiledTemplate compiled = engine.compile("${cliente.nome} mora na ${cliente.endereco.rua}, ${cliente.endereco.numero}.");
+        assertEquals("João mora na Silveira Martins, 30.", compiled.render(testBean));
+        endereco.setRua("Rua Nova");
+        endereco.setNumero(12);
+        assertEquals("João mora na Rua Nova, 12.", compiled.render(testBean));
+    }
+
+    @Test
+    public void test_compiled_template_keeps_serialization_type() throws Exception {
+        CompiledTemplate compiled = engine.compile("{ \"registro\": ${registro} }", TemplateEngine.JSON_SERIALIZATION);
+        assertEquals(TemplateEngine.JSON_SERIALIZATION, compiled.getSerializationType());
+        assertEquals("{ \"registro\": \"123456\" }", compiled.render(testBean));
+    }
+
+    @Test
+    public void test_compiled_template_without_placeholders() throws Exception {
+        assertEquals("", engine.compile("").render(testBean));
+        assertEquals("sem placeholders", engine.compile("sem placeholders").render(testBean));
+    }
+
+    // --- template cache tests ---
+
+    @Test
+    public void test_template_cache_counts_hits_and_misses() throws Exception {
+        engine.process("${registro}", testBean);
+        engine.process("${registro}", testBean);
+        engine.process("${cliente.nome}", testBean);
+        CacheStats stats = engine.getTemplateCacheStats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(2, stats.getMissCount());
+        assertEquals(0, stats.getEvictionCount());
+        assertEquals(2, stats.getSize());
+    }
+
+    @Test
+    public void test_template_cache_counts_each_serialization_type_separately() throws Exception {
+        engine.process("${registro}", testBean, TemplateEngine.STRING_SERIALIZATION);
+        engine.process("${registro}", testBean, TemplateEngine.JSON_SERIALIZATION);
+        engine.process("${registro}", testBean, TemplateEngine.JSON_SERIALIZATION);
+        CacheStats stats = engine.getTemplateCacheStats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(2, stats.getMissCount());
+        assertEquals(2, stats.getSize());
+    }
+
+    @Test
+    public void test_template_cache_evicts_least_recently_used_template() throws Exception {
+        engine = new TemplateEngine(2, TemplateEngine.DEFAULT_TEMPLATE_CACHE_WEIGHT);
+        engine.process("a ${registro}", testBean);
+        engine.process("b ${registro}", testBean);
+        engine.process("a ${registro}", testBean);
+        engine.process("c ${registro}", testBean);
+        assertEquals(1, engine.getTemplateCacheStats().getEvictionCount());
+        assertEquals("a 123456", engine.process("a ${registro}", testBean));
+        assertEquals(2, engine.getTemplateCacheStats().getHitCount());
+    }
+
+    @Test
+    public void test_template_cache_skips_templates_heavier_than_the_weight_limit() throws Exception {
+        engine = new TemplateEngine(10, 12);
+        assertEquals("123456", engine.process("${registro}", testBean));
+        assertEquals("O registro é 123456", engine.process("O registro é ${registro}", testBean));
+        assertEquals(1, engine.getTemplateCacheStats().getSize());
+    }
+
+    // --- accessor cache tests ---
+
+    @Test
+    public void test_inherited_getter_is_resolved() throws Exception {
+        TestBean subclassBean = new TestBean() {
+        };
+        subclassBean.setRegistro("654321");
+        assertEquals("654321", engine.process("${registro}", subclassBean));
+        assertEquals("123456", engine.process("${registro}", testBean));
+    }
+
+    @Test
+    public void test_missing_getter_keeps_throwing_after_being_cached() {
+        for (int i = 0; i < 2; i++) {
+            testReplacePropertiesThrowsAnException(
+                    "${cliente.inexistente}",
+                    "inexistente", Cliente.class,
+                    TemplateEngine.STRING_SERIALIZATION,
+                    GetPropertyException.class);
+        }
+    }
+
+    // --- accessor strategy tests ---
+
+    @Test
+    public void test_every_accessor_strategy_renders_the_same_result() throws Exception {
+        cliente.setAtivo(true);
+        String template = "${registro} ${cliente.nome} ${cliente.idade} ${cliente.ativo} ${cliente.endereco.rua} ${registroFormatado}";
+        int[] strategies = { TemplateEngine.REFLECTION_ACCESSORS, TemplateEngine.METHOD_HANDLE_ACCESSORS,
+                TemplateEngine.LAMBDA_ACCESSORS };
+        for (int strategy : strategies) {
+            engine = TemplateEngine.builder().accessorStrategy(strategy).build();
+            assertEquals("123456 João 32 true Silveira Martins REG-123456", engine.process(template, testBean));
+        }
+    }
+
+    @Test
+    public void test_accessor_strategies_wrap_getter_exceptions_in_GetPropertyException() {
+        int[] strategies = { TemplateEngine.REFLECTION_ACCESSORS, TemplateEngine.METHOD_HANDLE_ACCESSORS,
+                TemplateEngine.LAMBDA_ACCESSORS };
+        TestBean failingBean = new TestBean() {
+            @Override
+            public String getRegistro() {
+                throw new IllegalStateException("boom!");
+            }
+        };
+        for (int strategy : strategies) {
+            engine = TemplateEngine.builder().accessorStrategy(strategy).build();
+            try {
+                engine.process("${registro}", failingBean);
+                fail("Expected GetPropertyException");
+            } catch (GetPropertyException e) {
+                assertEquals("registro", e.getProperty());
+            } catch (Exception e) {
+                fail("Expected GetPropertyException, got: " + e.getClass());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_unknown_accessor_strategy_throws() {
+        TemplateEngine.builder().accessorStrategy(42).build();
+    }
+
+    // --- specialized renderer tests ---
+
+    @Test
+    public void test_specialized_renderer_matches_generic_rendering() throws Exception {
+        MapBean mapBean = new MapBean();
+        mapBean.setDados(Map.of("cliente", cliente));
+        testBean.setMapBean(mapBean);
+        String template = "${registro} ${cliente.nome} ${cliente.endereco.numero} ${mapBean.dados.cliente.nome}";
+        String expected = engine.process(template, testBean);
+
+        engine = TemplateEngine.builder().specializedRenderers(true).build();
+        CompiledTemplate compiled = engine.compile(template);
+        assertEquals(expected, compiled.render(testBean));
+        assertEquals(expected, compiled.render(testBean));
+
+        testBean.setCliente(null);
+        assertEquals("123456 null null João", compiled.render(testBean));
+    }
+
+    @Test
+    public void test_specialized_renderer_falls_back_for_another_bean_class() throws Exception {
+        engine = TemplateEngine.builder().specializedRenderers(true).build();
+        CompiledTemplate compiled = engine.compile("${registro}");
+        assertEquals("123456", compiled.render(testBean));
+
+        TestBean subclassBean = new TestBean() {
+            @Override
+            public String getRegistro() {
+                return "subclasse";
+            }
+        };
+        assertEquals("subclasse", compiled.render(subclassBean));
+        assertEquals("João", engine.compile("${nome}").render(cliente));
+    }
+
+    @Test
+    public void test_specialized_renderer_still_reports_missing_properties() {
+        engine = TemplateEngine.builder().specializedRenderers(true).build();
+        testReplacePropertiesThrowsAnException(
+                "${cliente.endereco.inexistente}",
+                "inexistente", Endereco.class,
+                TemplateEngine.STRING_SERIALIZATION,
+                GetPropertyException.class);
+    }
+
+    // --- Appendable output tests ---
+
+    @Test
+    public void test_process_writes_into_a_Writer() throws Exception {
+        StringWriter out = new StringWriter();
+        engine.process("O nome do cliente é ${cliente.nome}.", testBean, TemplateEngine.JSON_SERIALIZATION, out);
+        assertEquals("O nome do cliente é \"João\".", out.toString());
+    }
+
+    @Test
+    public void test_render_appends_to_existing_content() throws Exception {
+        StringBuilder out = new StringBuilder("Registro: ");
+        engine.compile("${registro}").render(testBean, out);
+        assertEquals("Registro: 123456", out.toString());
+    }
+
+    // --- template parser tests ---
+
+    private void assertParseError(String template, String reason, int line, int column) {
+        try {
+            engine.process(template, testBean);
+            fail("Expected TemplateParseException");
+        } catch (TemplateParseException e) {
+            assertEquals(reason, e.getReason());
+            assertEquals(line, e.getLine());
+            assertEquals(column, e.getColumn());
+            assertEquals("Can't parse template at line " + line + ", column " + column + ": " + reason,
+                    e.getMessage());
+        } catch (Exception e) {
+            fail("Expected TemplateParseException, got: " + e.getClass());
+        }
+    }
+
+    @Test
+    public void test_escaped_placeholder_is_rendered_literally() {
+        testReplaceProperties("\\${registro} = ${registro}", "${registro} = 123456", TemplateEngine.STRING_SERIALIZATION);
+    }
+
+    @Test
+    public void test_escaped_backslash_before_placeholder() throws Exception {
+        testReplaceProperties("C:\\\\${registro}", "C:\\123456", TemplateEngine.STRING_SERIALIZATION);
+        testReplaceProperties("\\\\\\${registro}", "\\${registro}", TemplateEngine.STRING_SERIALIZATION);
+        testReplaceProperties("\\\\\\\\${registro}", "\\\\123456", TemplateEngine.STRING_SERIALIZATION);
+        testReplaceProperties("a\\\\b ${registro}", "a\\\\b 123456", TemplateEngine.STRING_SERIALIZATION);
+        StringBuilder out = new StringBuilder();
+        engine.process(new StringReader("C:\\\\${registro} \\\\\\${registro}"), testBean,
+                TemplateEngine.STRING_SERIALIZATION, out, 2);
+        assertEquals("C:\\123456 \\${registro}", out.toString());
+    }
+
+    @Test
+    public void test_dollar_and_backslash_without_placeholder_are_literal() {
+        testReplaceProperties("US$ 10 \\ {x} } $", "US$ 10 \\ {x} } $", TemplateEngine.STRING_SERIALIZATION);
+        testReplaceProperties("$${registro}\\", "$123456\\", TemplateEngine.STRING_SERIALIZATION);
+    }
+
+    @Test
+    public void test_unclosed_placeholder_reports_its_position() {
+        assertParseError("Olá\n  ${cliente.nome", "unclosed placeholder", 2, 3);
+    }
+
+    @Test
+    public void test_empty_property_path_reports_its_position() {
+        assertParseError("${registro} ${}", "empty property path", 1, 15);
+        assertParseError("${|upper}", "empty property path", 1, 3);
+    }
+
+    @Test
+    public void test_empty_formatter_name_reports_its_position() {
+        assertParseError("${registro|}", "empty formatter name", 1, 12);
+    }
+
+    @Test
+    public void test_brace_inside_placeholder_reports_its_position() {
+        assertParseError("a\nb\n${cli{ente}", "unexpected '{' inside placeholder", 3, 6);
+    }
+
+    // --- scalar serialization tests ---
+
+    @Test
+    public void test_string_with_special_characters_is_not_escaped_with_STRING_SERIALIZATION() {
+        testBean.setRegistro("a \"b\" <c> & d\\e");
+        testReplaceProperties("${registro}", "a \"b\" <c> & d\\e", TemplateEngine.STRING_SERIALIZATION);
+    }
+
+    @Test
+    public void test_scalars_are_serialized_like_gson_with_JSON_SERIALIZATION() throws Exception {
+        Object[] values = { "a \"b\" <c> & d\\e='f'\n\t\u0001\u2028", 'x', 42, 42L, (short) 7, (byte) 1, 1.5d, 2.25f,
+                new BigDecimal("1E+3"), new BigInteger("123456789012345678901234567890"), true,
+                TimeUnit.SECONDS, LocalDate.of(2024, 3, 27), LocalTime.of(10, 30) };
+        for (Object value : values) {
+            MapBean mapBean = new MapBean();
+            mapBean.setDados(Map.of("valor", value));
+            testBean.setMapBean(mapBean);
+            assertEquals(engine.gson.toJson(value),
+                    engine.process("${mapBean.dados.valor}", testBean, TemplateEngine.JSON_SERIALIZATION));
+        }
+    }
+
+    @Test
+    public void test_scalars_with_STRING_SERIALIZATION() throws Exception {
+        Object[] values = { 'x', 42L, 1.5d, 2.25f, new BigDecimal("10.50"), TimeUnit.SECONDS,
+                new AtomicInteger(3), UUID.fromString("123e4567-e89b-12d3-a456-426614174000") };
+        String[] expected = { "x", "42", "1.5", "2.25", "10.50", "SECONDS", "3",
+                "123e4567-e89b-12d3-a456-426614174000" };
+        for (int i = 0; i < values.length; i++) {
+            MapBean mapBean = new MapBean();
+            mapBean.setDados(Map.of("valor", values[i]));
+            testBean.setMapBean(mapBean);
+            assertEquals(expected[i], engine.process("${mapBean.dados.valor}", testBean));
+        }
+    }
+
+    // --- streaming JSON tests ---
+
+    @Test
+    public void test_object_is_streamed_into_a_Writer_with_JSON_SERIALIZATION() throws Exception {
+        StringWriter out = new StringWriter();
+        engine.process("{ \"cliente\": ${cliente}, \"lista\": ${lista} }", testBean, TemplateEngine.JSON_SERIALIZATION, out);
+        assertEquals("{ \"cliente\": {\"nome\":\"João\",\"idade\":32,\"ativo\":false,\"endereco\":{\"rua\":\"Silveira Martins\",\"numero\":30}}, "
+                + "\"lista\": [\"value1\",\"value2\",\"value3\",\"value4\",\"value5\"] }", out.toString());
+    }
+
+    @Test
+    public void test_java_time_adapters_apply_inside_streamed_objects() throws Exception {
+        MapBean mapBean = new MapBean();
+        mapBean.setDados(Map.of("data", LocalDate.of(2024, 3, 27)));
+        testBean.setMapBean(mapBean);
+        assertEquals("{\"dados\":{\"data\":\"2024-03-27\"}}",
+                engine.process("${mapBean}", testBean, TemplateEngine.JSON_SERIALIZATION));
+    }
+
+    @Test
+    public void test_write_failure_while_streaming_json_propagates_IOException() throws Exception {
+        Writer failing = new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try {
+            engine.process("${lista}", testBean, TemplateEngine.JSON_SERIALIZATION, failing);
+            fail("Expected IOException");
+        } catch (IOException e) {
+            assertEquals("disk full", e.getMessage());
+        }
+    }
+
+    // --- batch rendering tests ---
+
+    @Test
+    public void test_renderAll_preserves_order_and_collects_failures() throws Exception {
+        engine.registerFormatter("par", (p, v) -> {
+            if (Integer.parseInt(v.toString()) % 2 != 0) {
+                throw new Exception("ímpar");
+            }
+            return v.toString();
+        });
+        List<TestBean> beans = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            TestBean bean = new TestBean();
+            bean.setRegistro(String.valueOf(i));
+            beans.add(bean);
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<RenderResult> results = engine.renderAll("#${registro|par}", beans, TemplateEngine.STRING_SERIALIZATION, pool);
+            assertEquals(beans.size(), results.size());
+            for (int i = 0; i < beans.size(); i++) {
+                RenderResult result = results.get(i);
+                assertEquals(beans.get(i), result.getBean());
+                if (i % 2 == 0) {
+                    assertTrue(result.isSuccess());
+                    assertEquals("#" + i, result.getOutput());
+                } else {
+                    assertEquals(SerializePropertyException.class, result.getException().getClass());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void test_renderAll_accepts_a_stream() throws Exception {
+        List<RenderResult> results = engine.renderAll("${nome}", Stream.of(cliente, cliente),
+                TemplateEngine.JSON_SERIALIZATION, Runnable::run);
+        assertEquals("\"João\"", results.get(0).getOutput());
+        assertEquals("\"João\"", results.get(1).getOutput());
+        assertTrue(engine.renderAll("${nome}", List.of()).isEmpty());
+    }
+
+    // --- asynchronous rendering tests ---
+
+    @Test
+    public void test_processAsync_completes_with_the_rendered_template() throws Exception {
+        assertEquals("João", engine.processAsync("${cliente.nome}", testBean).get(5, TimeUnit.SECONDS));
+        assertEquals("\"João\"", engine.processAsync("${cliente.nome}", testBean,
+                TemplateEngine.JSON_SERIALIZATION, Runnable::run).get());
+    }
+
+    @Test
+    public void test_processAsync_completes_exceptionally_on_failure() throws Exception {
+        try {
+            engine.processAsync("${inexistente}", testBean).get(5, TimeUnit.SECONDS);
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertEquals(GetPropertyException.class, e.getCause().getClass());
+        }
+    }
+
+    // --- builder tests ---
+
+    @Test
+    public void test_builder_registers_formatters() throws Exception {
+        TemplateEngine built = TemplateEngine.builder()
+                .formatter("upper", (p, v) -> v.toString().toUpperCase())
+                .build();
+        assertEquals("JOÃO", built.process("${cliente.nome|upper}", testBean));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void test_registerFormatter_on_built_engine_throws() {
+        TemplateEngine.builder().build().registerFormatter("upper", (p, v) -> "x");
+    }
+
+    @Test
+    public void test_withFormatter_derives_a_new_engine() throws Exception {
+        TemplateEngine base = TemplateEngine.builder().formatter("upper", (p, v) -> v.toString().toUpperCase()).build();
+        TemplateEngine derived = base.withFormatter("lower", (p, v) -> v.toString().toLowerCase());
+
+        assertEquals("JOÃO joão", derived.process("${cliente.nome|upper} ${cliente.nome|lower}", testBean));
+        try {
+            base.process("${cliente.nome|lower}", testBean);
+            fail("Expected FormatterNotFoundException");
+        } catch (FormatterNotFoundException e) {
+            assertEquals("lower", e.getFormatterName());
+        }
+    }
+
+    @Test
+    public void test_builder_uses_the_given_gson_for_every_value() throws Exception {
+        TemplateEngine built = TemplateEngine.builder()
+                .gson(new GsonBuilder().disableHtmlEscaping().create())
+                .build();
+        testBean.setRegistro("<a>");
+        assertEquals("\"<a>\"", built.process("${registro}", testBean, TemplateEngine.JSON_SERIALIZATION));
+        assertEquals("\"\\u003ca\\u003e\"", engine.process("${registro}", testBean, TemplateEngine.JSON_SERIALIZATION));
+    }
+
+    @Test
+    public void test_builder_gson_serializes_formatted_values() throws Exception {
+        TemplateEngine built = TemplateEngine.builder()
+                .gson(new GsonBuilder().disableHtmlEscaping().create())
+                .formatter("id", (p, v) -> v.toString())
+                .formatter("intId", (IntFormatter) (p, v) -> "<" + v + ">")
+                .accessorStrategy(TemplateEngine.METHOD_HANDLE_ACCESSORS)
+                .build();
+        testBean.setRegistro("a<b");
+        assertEquals("\"a<b\" \"a<b\" \"<32>\"", built.process("${registro} ${registro|id} ${cliente.idade|intId}",
+                testBean, TemplateEngine.JSON_SERIALIZATION));
+    }
+
+    @Test
+    public void test_concurrent_process_calls_render_their_own_beans() throws Exception {
+        TemplateEngine built = TemplateEngine.builder()
+                .formatter("upper", (p, v) -> v.toString().toUpperCase())
+                .accessorStrategy(TemplateEngine.LAMBDA_ACCESSORS)
+                .specializedRenderers(true)
+                .templateCacheSize(4)
+                .build();
+        int threads = 8;
+        int iterations = 2000;
+        CyclicBarrier start = new CyclicBarrier(threads);
+        AtomicInteger failures = new AtomicInteger();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < iterations; i++) {
+                        TestBean bean = new TestBean();
+                        bean.setRegistro(id + "-" + i);
+                        Cliente c = new Cliente();
+                        c.setNome("cliente" + id);
+                        bean.setCliente(c);
+                        // a few distinct templates keep the bounded cache evicting
+                        String template = "${registro}:${cliente.nome|upper}#" + (i % 6);
+                        String expected = id + "-" + i + ":CLIENTE" + id + "#" + (i % 6);
+                        if (!expected.equals(built.process(template, bean))) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(0, failures.get());
+    }
+
+    // --- render listener tests ---
+
+    @Test
+    public void test_listener_receives_every_measurement() throws Exception {
+        List<String> events = new ArrayList<>();
+        RenderListener listener = new RenderListener() {
+            @Override
+            public void templateCacheLookup(String template, boolean hit) {
+                events.add("cache " + hit);
+            }
+
+            @Override
+            public void templateCompiled(String template, long nanos) {
+                events.add("compiled " + template);
+            }
+
+            @Override
+            public void templateRendered(String template, long nanos, long length) {
+                events.add("rendered " + length);
+            }
+
+            @Override
+            public void placeholderResolved(String path, long nanos) {
+                events.add("resolved " + path);
+            }
+
+            @Override
+            public void formatterApplied(String formatterName, long nanos) {
+                events.add("formatter " + formatterName);
+            }
+        };
+        TemplateEngine built = TemplateEngine.builder()
+                .formatter("upper", (p, v) -> v.toString().toUpperCase())
+                .listener(listener)
+                .build();
+
+        assertEquals("JOÃO 123456", built.process("${cliente.nome|upper} ${registro}", testBean));
+        assertEquals(List.of("cache false", "compiled ${cliente.nome|upper} ${registro}",
+                "resolved cliente.nome", "formatter upper", "resolved registro", "rendered 11"), events);
+
+        events.clear();
+        built.process("${cliente.nome|upper} ${registro}", testBean);
+        assertEquals("cache true", events.get(0));
+        assertEquals(5, events.size());
+    }
+
+    @Test
+    public void test_listener_is_kept_by_withFormatter() throws Exception {
+        AtomicInteger renders = new AtomicInteger();
+        TemplateEngine built = TemplateEngine.builder()
+                .listener(new RenderListener() {
+                    @Override
+                    public void templateRendered(String template, long nanos, long length) {
+                        renders.incrementAndGet();
+                    }
+                })
+                .build()
+                .withFormatter("upper", (p, v) -> v.toString().toUpperCase());
+        StringWriter out = new StringWriter();
+        built.process("${registro|upper}", testBean, TemplateEngine.STRING_SERIALIZATION, out);
+        assertEquals("123456", out.toString());
+        assertEquals(1, renders.get());
+    }
+
+    // --- UTF-8 output tests ---
+
+    @Test
+    public void test_renderUtf8_matches_the_encoded_String_rendering() throws Exception {
+        testBean.setRegistro("ação \uD83D\uDE00 \u20AC <&>");
+        String template = "Olá ${cliente.nome}, registro ${registro}, idade ${cliente.idade}, ativo ${cliente.ativo} ✓";
+        for (int type : new int[] { TemplateEngine.STRING_SERIALIZATION, TemplateEngine.JSON_SERIALIZATION }) {
+            CompiledTemplate compiled = engine.compile(template, type);
+            byte[] expected = compiled.render(testBean).getBytes(StandardCharsets.UTF_8);
+            assertTrue(Arrays.equals(expected, compiled.renderUtf8(testBean)));
+
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            engine.processUtf8(template, testBean, type, stream);
+            assertTrue(Arrays.equals(expected, stream.toByteArray()));
+
+            ByteBuffer buffer = ByteBuffer.allocate(expected.length);
+            compiled.renderUtf8(testBean, buffer);
+            assertTrue(Arrays.equals(expected, buffer.array()));
+        }
+    }
+
+    @Test
+    public void test_renderUtf8_replaces_unpaired_surrogates() throws Exception {
+        testBean.setRegistro("a\uD83Db\uDE00");
+        assertTrue(Arrays.equals("a?b?".getBytes(StandardCharsets.UTF_8),
+                engine.compile("${registro}").renderUtf8(testBean)));
+    }
+
+    @Test
+    public void test_renderUtf8_writes_large_templates() throws Exception {
+        String literal = "é".repeat(3000);
+        CompiledTemplate compiled = engine.compile(literal + "${registro}" + literal);
+        assertEquals(literal + "123456" + literal,
+                new String(compiled.renderUtf8(testBean), StandardCharsets.UTF_8));
+    }
+
+    @Test(expected = BufferOverflowException.class)
+    public void test_renderUtf8_into_a_full_buffer_throws() throws Exception {
+        engine.compile("registro ${registro}").renderUtf8(testBean, ByteBuffer.allocate(4));
+    }
+
+    // --- memory-mapped file tests ---
+
+    @Test
+    public void test_process_renders_a_template_file_into_an_output_file() throws Exception {
+        Path dir = Files.createTempDirectory("template-engine");
+        try {
+            String literal = "ação ✓ \uD83D\uDE00 ".repeat(20000);
+            String template = literal + "${cliente.nome} \\${registro} ${registro|upper}" + literal + "${cliente.endereco.rua}";
+            Path templateFile = Files.writeString(dir.resolve("template.txt"), template);
+            Path output = dir.resolve("output.txt");
+            Files.writeString(output, "conteúdo anterior, mais longo que nada");
+            engine.registerFormatter("upper", (p, v) -> v.toString().toUpperCase() + "é");
+
+            engine.process(templateFile, testBean, output);
+            assertEquals(engine.process(template, testBean), Files.readString(output));
+
+            engine.process(templateFile, testBean, TemplateEngine.JSON_SERIALIZATION, output);
+            assertEquals(engine.process(template, testBean, TemplateEngine.JSON_SERIALIZATION),
+                    Files.readString(output));
+        } finally {
+            try (Stream<Path> files = Files.list(dir)) {
+                files.forEach(file -> file.toFile().delete());
+            }
+            Files.delete(dir);
+        }
+    }
+
+    @Test
+    public void test_process_of_a_template_file_reports_to_the_listener() throws Exception {
+        List<String> events = new ArrayList<>();
+        TemplateEngine built = TemplateEngine.builder()
+                .listener(new RenderListener() {
+                    @Override
+                    public void templateCompiled(String template, long nanos) {
+                        events.add("compiled " + template);
+                    }
+
+                    @Override
+                    public void templateRendered(String template, long nanos, long length) {
+                        events.add("rendered " + template + " " + length);
+                    }
+                })
+                .build();
+        Path templateFile = Files.createTempFile("template-engine", ".txt");
+        Path output = Files.createTempFile("template-engine", ".out");
+        try {
+            Files.writeString(templateFile, "Olá ${cliente.nome}");
+            built.process(templateFile, testBean, output);
+            assertEquals(List.of("compiled " + templateFile, "rendered " + templateFile + " " + Files.size(output)),
+                    events);
+            assertEquals("Olá João".getBytes(StandardCharsets.UTF_8).length, Files.size(output));
+        } finally {
+            Files.delete(templateFile);
+            Files.delete(output);
+        }
+    }
+
+    @Test
+    public void test_process_of_a_malformed_template_file_throws() throws Exception {
+        Path templateFile = Files.createTempFile("template-engine", ".txt");
+        Path output = Files.createTempFile("template-engine", ".out");
+        try {
+            Files.writeString(templateFile, "linha 1\nOlá ${cliente.nome");
+            engine.process(templateFile, testBean, output);
+            fail("Expected TemplateParseException");
+        } catch (TemplateParseException e) {
+            assertEquals(2, e.getLine());
+        } finally {
+            Files.delete(templateFile);
+            Files.delete(output);
+        }
+    }
+
+    // --- Reader streaming tests ---
+
+    @Test
+    public void test_process_from_a_Reader_reports_to_the_listener() throws Exception {
+        List<String> events = new ArrayList<>();
+        Map<String, Integer> compilations = new ConcurrentHashMap<>();
+        TemplateEngine built = TemplateEngine.builder()
+                .listener(new RenderListener() {
+                    @Override
+                    public void templateCompiled(String template, long nanos) {
+                        // keyed by template, as a metrics registry would
+                        compilations.merge(template, 1, Integer::sum);
+                        events.add("compiled " + template);
+                    }
+
+                    @Override
+                    public void templateRendered(String template, long nanos, long length) {
+                        events.add("rendered " + template + " " + length);
+                    }
+                })
+                .build();
+        StringBuilder out = new StringBuilder();
+        built.process(new StringReader("Olá ${cliente.nome}, registro ${registro}"), testBean,
+                TemplateEngine.STRING_SERIALIZATION, out, 8);
+        assertEquals("Olá João, registro 123456", out.toString());
+        assertEquals(List.of("compiled <reader>", "rendered <reader> " + out.length()), events);
+        assertEquals(Integer.valueOf(1), compilations.get("<reader>"));
+    }
+
+    @Test
+    public void test_process_from_a_Reader_handles_placeholders_across_chunks() throws Exception {
+        engine.registerFormatter("upper", (p, v) -> v.toString().toUpperCase());
+        String template = "Olá $ ${cliente.nome|upper}, \\${registro} = ${registro}\\ fim ${cliente.endereco.rua}$";
+        for (int type : new int[] { TemplateEngine.STRING_SERIALIZATION, TemplateEngine.JSON_SERIALIZATION }) {
+            String expected = engine.process(template, testBean, type);
+            for (int chunkSize = 1; chunkSize <= template.length() + 1; chunkSize++) {
+                StringBuilder out = new StringBuilder();
+                engine.process(new StringReader(template), testBean, type, out, chunkSize);
+                assertEquals("chunk size " + chunkSize, expected, out.toString());
+            }
+        }
+    }
+
+    @Test
+    public void test_process_from_a_Reader_reports_the_error_position() throws Exception {
+        try {
+            engine.process(new StringReader("linha 1\nlinha ${registro}\n  ${}"), testBean,
+                    TemplateEngine.STRING_SERIALIZATION, new StringWriter(), 3);
+            fail("Expected TemplateParseException");
+        } catch (TemplateParseException e) {
+            assertEquals(3, e.getLine());
+            assertEquals(5, e.getColumn());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void test_process_from_a_Reader_rejects_an_unclosed_placeholder_without_buffering_the_rest()
+            throws Exception {
+        String head = "linha 1\n  ${";
+        Reader endless = new Reader() {
+            private int position;
+
+            @Override
+            public int read(char[] buffer, int offset, int length) {
+                for (int i = 0; i < length; i++, position++) {
+                    buffer[offset + i] = position < head.length() ? head.charAt(position) : 'x';
+                }
+                return length;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try {
+            engine.process(endless, testBean, TemplateEngine.STRING_SERIALIZATION, new StringWriter(), 16);
+            fail("Expected TemplateParseException");
+        } catch (TemplateParseException e) {
+            assertEquals(2, e.getLine());
+            assertEquals(3, e.getColumn());
+        }
+    }
+
+    // --- record-stream export tests ---
+
+    @Test
+    public void test_renderEach_writes_rows_separated_by_the_separator() throws Exception {
+        List<TestBean> beans = new ArrayList<>();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            TestBean bean = new TestBean();
+            bean.setRegistro("reg-" + i);
+            bean.setCliente(cliente);
+            beans.add(bean);
+            if (i > 0) {
+                expected.append('\n');
+            }
+            expected.append("{\"registro\": \"reg-").append(i).append("\", \"nome\": \"João\"}");
+        }
+        CompiledTemplate compiled = engine.compile("{\"registro\": ${registro}, \"nome\": ${cliente.nome}}",
+                TemplateEngine.JSON_SERIALIZATION);
+
+        StringWriter out = new StringWriter();
+        assertEquals(2000, compiled.renderEach(beans.stream(), "\n", out));
+        assertEquals(expected.toString(), out.toString());
+    }
+
+    @Test
+    public void test_renderEach_handles_beans_of_other_classes_and_no_separator() throws Exception {
+        TestBean subclassBean = new TestBean() {
+            @Override
+            public String getRegistro() {
+                return "subclasse";
+            }
+        };
+        StringWriter out = new StringWriter();
+        long rows = engine.compile("[${registro}]").renderEach(List.of(testBean, subclassBean, testBean).iterator(),
+                null, out);
+        assertEquals(3, rows);
+        assertEquals("[123456][subclasse][123456]", out.toString());
+    }
+
+    @Test
+    public void test_renderEach_stops_at_the_first_failing_row() throws Exception {
+        Cliente semEndereco = new Cliente();
+        StringWriter out = new StringWriter();
+        try {
+            engine.compile("${nome} ${endereco.inexistente}").renderEach(Stream.of(cliente, semEndereco), ";", out);
+            fail("Expected GetPropertyException");
+        } catch (GetPropertyException e) {
+            assertEquals("inexistente", e.getProperty());
+        }
+    }
+
+    // --- shared path prefix tests ---
+
+    @Test
+    public void test_shared_path_prefixes_are_resolved_once_per_render() throws Exception {
+        AtomicInteger clienteCalls = new AtomicInteger();
+        AtomicInteger enderecoCalls = new AtomicInteger();
+        Cliente countingCliente = new Cliente() {
+            @Override
+            public Endereco getEndereco() {
+                enderecoCalls.incrementAndGet();
+                return endereco;
+            }
+        };
+        countingCliente.setNome("João");
+        TestBean countingBean = new TestBean() {
+            @Override
+            public Cliente getCliente() {
+                clienteCalls.incrementAndGet();
+                return countingCliente;
+            }
+        };
+        String template = "${cliente.nome} ${cliente.endereco.rua}, ${cliente.endereco.numero} ${cliente.nome|upper}";
+        engine.registerFormatter("upper", (p, v) -> v.toString().toUpperCase());
+
+        assertEquals("João Silveira Martins, 30 JOÃO", engine.process(template, countingBean));
+        assertEquals(1, clienteCalls.get());
+        assertEquals(1, enderecoCalls.get());
+
+        TemplateEngine specialized = TemplateEngine.builder()
+                .formatter("upper", (p, v) -> v.toString().toUpperCase())
+                .specializedRenderers(true)
+                .build();
+        CompiledTemplate compiled = specialized.compile(template);
+        compiled.render(countingBean);
+        compiled.render(countingBean);
+        assertEquals(3, clienteCalls.get());
+        assertEquals(3, enderecoCalls.get());
+    }
+
+    @Test
+    public void test_shared_path_prefixes_keep_null_and_Map_semantics() throws Exception {
+        MapBean mapBean = new MapBean();
+        mapBean.setDados(Map.of("cliente", cliente));
+        testBean.setMapBean(mapBean);
+        testBean.setRegistro(null);
+        assertEquals("null null João Silveira Martins",
+                engine.process("${registro} ${mapBean.dados.ausente.nome} ${mapBean.dados.cliente.nome} "
+                        + "${mapBean.dados.cliente.endereco.rua}", testBean));
+
+        cliente.setEndereco(null);
+        assertEquals("null null", engine.process("${cliente.endereco.rua} ${cliente.endereco.inexistente}", testBean));
+    }
+
+    // --- repeated placeholder tests ---
+
+    @Test
+    public void test_repeated_placeholders_are_formatted_once_per_render() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        engine.registerFormatter("upper", (p, v) -> {
+            calls.incrementAndGet();
+            return v.toString().toUpperCase();
+        });
+        String template = "${cliente.nome|upper}, ${cliente.nome} ${cliente.nome|upper} ${registro} ${cliente.nome|upper}";
+        CompiledTemplate compiled = engine.compile(template, TemplateEngine.JSON_SERIALIZATION);
+
+        assertEquals("\"JOÃO\", \"João\" \"JOÃO\" \"123456\" \"JOÃO\"", compiled.render(testBean));
+        assertEquals(1, calls.get());
+        assertEquals("\"JOÃO\", \"João\" \"JOÃO\" \"123456\" \"JOÃO\"",
+                new String(compiled.renderUtf8(testBean), StandardCharsets.UTF_8));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void test_nonDeterministic_formatters_run_for_every_occurrence() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        engine.registerFormatter("seq", CustomFormatter.nonDeterministic((p, v) -> v + "#" + counter.incrementAndGet()));
+        assertEquals("123456#1 123456#2 123456#3", engine.process("${registro|seq} ${registro|seq} ${registro|seq}", testBean));
+    }
+
+    // --- cached formatter tests ---
+
+    @Test
+    public void test_cached_formatter_reuses_results_across_renders() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CachedFormatter upper = CustomFormatter.cached((p, v) -> {
+            calls.incrementAndGet();
+            return v == null ? null : v.toString().toUpperCase();
+        }, 100);
+        engine.registerFormatter("upper", upper);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("JOÃO null", engine.process("${cliente.nome|upper} ${mapBean|upper}", testBean));
+        }
+        assertEquals(2, calls.get());
+        assertEquals(8, upper.getStats().getHitCount());
+        assertEquals(2, upper.getStats().getMissCount());
+        assertEquals(0.8, upper.getStats().getHitRate(), 0.0001);
+
+        upper.clear();
+        engine.process("${cliente.nome|upper}", testBean);
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void test_cached_formatter_evicts_beyond_its_maximum_size() throws Exception {
+        CachedFormatter identity = CustomFormatter.cached((p, v) -> String.valueOf(v), 2);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(String.valueOf(i), identity.format("valor", i));
+        }
+        assertEquals(2, identity.getStats().getSize());
+        assertEquals(8, identity.getStats().getEvictionCount());
+    }
+
+    @Test(timeout = 10000)
+    public void test_cached_formatter_evicts_in_constant_time_at_high_cardinality() throws Exception {
+        CachedFormatter identity = CustomFormatter.cached((p, v) -> String.valueOf(v), 50_000);
+        for (int i = 0; i < 200_000; i++) {
+            identity.format("valor", i);
+        }
+        assertEquals(50_000, identity.getStats().getSize());
+        assertEquals(150_000, identity.getStats().getEvictionCount());
+        // the most recent entries survived
+        identity.format("valor", 199_999);
+        assertEquals(1, identity.getStats().getHitCount());
+    }
+
+    @Test
+    public void test_cached_formatter_passes_nonScalar_values_through() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CachedFormatter size = CustomFormatter.cached((p, v) -> {
+            calls.incrementAndGet();
+            return String.valueOf(((List<?>) v).size());
+        }, 10);
+        List<String> itens = new ArrayList<>(Arrays.asList("a", "b"));
+        assertEquals("2", size.format("itens", itens));
+        itens.add("c");
+        assertEquals("3", size.format("itens", itens));
+        assertEquals(2, calls.get());
+        assertEquals(0, size.getStats().getSize());
+        assertEquals(0, size.getStats().getMissCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_cached_rejects_nonDeterministic_formatters() {
+        CustomFormatter.cached(CustomFormatter.nonDeterministic((p, v) -> "x"), 10);
+    }
+
+    // --- formatter chain tests ---
+
+    @Test
+    public void test_formatter_chain_applies_formatters_in_order() throws Exception {
+        engine.registerFormatter("trim", (p, v) -> v.toString().trim());
+        engine.registerFormatter("upper", (p, v) -> v.toString().toUpperCase());
+        engine.registerFormatter("mask", (p, v) -> v.toString().substring(0, 2) + "***");
+        cliente.setNome("  João  ");
+        assertEquals("JO***", engine.process("${cliente.nome|trim|upper|mask}", testBean));
+        assertEquals("\"JOÃO\"", engine.process("${cliente.nome|trim|upper}", testBean,
+                TemplateEngine.JSON_SERIALIZATION));
+    }
+
+    @Test
+    public void test_unknown_formatter_in_chain_fails_at_compile_time() throws Exception {
+        engine.registerFormatter("trim", (p, v) -> v.toString().trim());
+        try {
+            engine.compile("${cliente.nome|trim|inexistente}");
+            fail("Expected FormatterNotFoundException");
+        } catch (FormatterNotFoundException e) {
+            assertEquals("inexistente", e.getFormatterName());
+        }
+    }
+
+    @Test
+    public void test_empty_formatter_name_in_chain_throws() {
+        try {
+            engine.compile("${cliente.nome|trim||upper}");
+            fail("Expected TemplateParseException");
+        } catch (TemplateParseException e) {
+            assertEquals("empty formatter name", e.getReason());
+            assertEquals(21, e.getColumn());
+        } catch (Exception e) {
+            fail("Expected TemplateParseException, got: " + e.getClass());
+        }
+    }
+
+    @Test
+    public void test_registerFormatter_during_concurrent_renders_leaves_no_stale_binding() throws Exception {
+        engine.registerFormatter("fmt", (p, v) -> "0");
+        AtomicInteger failures = new AtomicInteger();
+        Thread[] renderers = new Thread[4];
+        AtomicBoolean running = new AtomicBoolean(true);
+        for (int t = 0; t < renderers.length; t++) {
+            renderers[t] = new Thread(() -> {
+                while (running.get()) {
+                    try {
+                        engine.process("${registro|fmt}", testBean);
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+            renderers[t].start();
+        }
+        for (int i = 1; i <= 500; i++) {
+            String value = String.valueOf(i);
+            engine.registerFormatter("fmt", (p, v) -> value);
+        }
+        running.set(false);
+        for (Thread renderer : renderers) {
+            renderer.join();
+        }
+        assertEquals(0, failures.get());
+        assertEquals("500", engine.process("${registro|fmt}", testBean));
+    }
+
+    @Test
+    public void test_registerFormatter_rebinds_cached_templates() throws Exception {
+        engine.registerFormatter("fmt", (p, v) -> "primeiro");
+        assertEquals("primeiro", engine.process("${registro|fmt}", testBean));
+        engine.registerFormatter("fmt", (p, v) -> "segundo");
+        assertEquals("segundo", engine.process("${registro|fmt}", testBean));
+    }
+
+    // --- primitive formatter tests ---
+
+    private static Map<String, Object> contaBean(int numero, long limite, double saldo, float taxa) {
+        Conta conta = new Conta();
+        conta.setNumero(numero);
+        conta.setLimite(limite);
+        conta.setSaldo(saldo);
+        conta.setTaxa(taxa);
+        Map<String, Object> bean = new HashMap<>();
+        bean.put("conta", conta);
+        return bean;
+    }
+
+    @Test
+    public void test_primitive_formatters_receive_unboxed_values() throws Exception {
+        int[] strategies = { TemplateEngine.REFLECTION_ACCESSORS, TemplateEngine.METHOD_HANDLE_ACCESSORS,
+                TemplateEngine.LAMBDA_ACCESSORS };
+        for (int strategy : strategies) {
+            TemplateEngine primitiveEngine = TemplateEngine.builder()
+                    .accessorStrategy(strategy)
+                    .formatter("hex", (IntFormatter) (p, v) -> Integer.toHexString(v))
+                    .formatter("milhar", (LongFormatter) (p, v) -> String.format("%,d", v).replace(',', '.'))
+                    .formatter("moeda", (DoubleFormatter) (p, v) -> String.format(Locale.ROOT, "R$ %.2f", v))
+                    .build();
+            Object bean = contaBean(255, 1500000L, 1234.5, 0.1f);
+            assertEquals("ff 1.500.000 R$ 1234.50",
+                    primitiveEngine.process("${conta.numero|hex} ${conta.limite|milhar} ${conta.saldo|moeda}", bean));
+        }
+    }
+
+    @Test
+    public void test_primitive_getter_bypasses_boxed_format() throws Exception {
+        IntFormatter unboxedOnly = new IntFormatter() {
+            @Override
+            public String formatInt(String propertyName, int value) {
+                return "#" + value;
+            }
+
+            @Override
+            public String format(String propertyName, Object resolvedValue) {
+                throw new AssertionError("boxed value: " + resolvedValue);
+            }
+        };
+        TemplateEngine handles = TemplateEngine.builder()
+                .accessorStrategy(TemplateEngine.METHOD_HANDLE_ACCESSORS)
+                .formatter("num", unboxedOnly)
+                .build();
+        assertEquals("#7", handles.process("${conta.numero|num}", contaBean(7, 0, 0, 0)));
+    }
+
+    @Test
+    public void test_unformatted_primitives_render_like_their_boxed_values() throws Exception {
+        String template = "${conta.numero}|${conta.limite}|${conta.saldo}|${conta.taxa}";
+        Object bean = contaBean(-42, Long.MIN_VALUE, 0.1, 0.1f);
+        String expected = "-42|" + Long.MIN_VALUE + "|0.1|0.1";
+        TemplateEngine handles = TemplateEngine.builder()
+                .accessorStrategy(TemplateEngine.METHOD_HANDLE_ACCESSORS)
+                .build();
+        assertEquals(expected, handles.process(template, bean));
+        assertEquals(expected, handles.process(template, bean, TemplateEngine.JSON_SERIALIZATION));
+        assertEquals(expected, new String(handles.compile(template).renderUtf8(bean), StandardCharsets.UTF_8));
+        assertEquals("0|9223372036854775807", new String(handles.compile("${conta.numero}|${conta.limite}")
+                .renderUtf8(contaBean(0, Long.MAX_VALUE, 0, 0)), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void test_primitive_formatter_formats_boxed_and_null_values() throws Exception {
+        engine.registerFormatter("dobro", (IntFormatter) (p, v) -> String.valueOf(v * 2));
+        Map<String, Object> bean = new HashMap<>();
+        bean.put("valor", 21L);
+        bean.put("nulo", null);
+        assertEquals("42 null", engine.process("${valor|dobro} ${nulo|dobro}", bean));
+    }
+
+    @Test
+    public void test_primitive_placeholders_are_reported_once() throws Exception {
+        List<String> events = new ArrayList<>();
+        TemplateEngine handles = TemplateEngine.builder()
+                .accessorStrategy(TemplateEngine.METHOD_HANDLE_ACCESSORS)
+                .formatter("hex", (IntFormatter) (p, v) -> Integer.toHexString(v))
+                .listener(new RenderListener() {
+                    @Override
+                    public void placeholderResolved(String path, long nanos) {
+                        events.add("resolved " + path);
+                    }
+
+                    @Override
+                    public void formatterApplied(String formatterName, long nanos) {
+                        events.add("formatter " + formatterName);
+                    }
+                })
+                .build();
+        assertEquals("ff 7", handles.process("${conta.numero|hex} ${conta.limite|hex}", contaBean(255, 7, 0, 0)));
+        assertEquals(List.of("resolved conta.numero", "formatter hex", "resolved conta.limite", "formatter hex"),
+                events);
+
+        events.clear();
+        try {
+            // NaN is left to Gson, which rejects it
+            handles.process("${conta.saldo}", contaBean(0, 0, Double.NaN, 0));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals(List.of("resolved conta.saldo"), events);
+        }
+    }
+
+    @Test
+    public void test_primitive_value_is_shared_with_boxed_placeholders() throws Exception {
+        TemplateEngine handles = TemplateEngine.builder()
+                .accessorStrategy(TemplateEngine.LAMBDA_ACCESSORS)
+                .formatter("hex", (IntFormatter) (p, v) -> Integer.toHexString(v))
+                .formatter("tipo", (p, v) -> v.getClass().getSimpleName())
+                .formatter("moeda", (DoubleFormatter) (p, v) -> "R$ " + v)
+                .build();
+        assertEquals("ff Integer 255 Long R$ 2.5",
+                handles.process("${conta.numero|hex} ${conta.numero|tipo} ${conta.numero} ${conta.limite|tipo}"
+                        + " ${conta.saldo|moeda}", contaBean(255, 7, 2.5, 0)));
+    }
+
+    // --- slot template tests ---
+
+    @Test
+    public void test_slot_template_renders_from_array() throws Exception {
+        SlotTemplate sms = engine.compileSlots("Olá ${nome}, seu código é ${codigo}. ${nome}!", "nome", "codigo");
+        assertEquals("Olá Maria, seu código é 4821. Maria!", sms.render(new Object[] { "Maria", 4821 }));
+        assertEquals("Olá null, seu código é 7. null!", sms.render(new Object[] { null, 7 }));
+        assertEquals(Arrays.asList("nome", "codigo"), sms.getPaths());
+        assertEquals(1, sms.slotOf("codigo"));
+        assertEquals(-1, sms.slotOf("inexistente"));
+    }
+
+    @Test
+    public void test_slot_template_applies_formatters_and_json_serialization() throws Exception {
+        engine.registerFormatter("upper", (p, v) -> v.toString().toUpperCase());
+        SlotTemplate json = engine.compileSlots("{\"nome\":${cliente.nome|upper},\"idade\":${cliente.idade}}",
+                TemplateEngine.JSON_SERIALIZATION, "cliente.idade", "cliente.nome");
+        assertEquals("{\"nome\":\"JOÃO\",\"idade\":30}", json.render(new Object[] { 30, "João" }));
+    }
+
+    @Test
+    public void test_slot_template_renders_from_source() throws Exception {
+        SlotTemplate template = engine.compileSlots("${a}-${b}", "a", "b", "c");
+        List<Object> values = Arrays.asList("x", 2, "não usado");
+        StringBuilder out = new StringBuilder(">");
+        template.render(values::get, out);
+        assertEquals(">x-2", out.toString());
+    }
+
+    @Test
+    public void test_slot_template_rejects_undeclared_path() throws Exception {
+        try {
+            engine.compileSlots("${nome} ${sobrenome}", "nome");
+            fail("Expected GetPropertyException");
+        } catch (GetPropertyException e) {
+            assertEquals("sobrenome", e.getProperty());
+            assertEquals(Object[].class, e.getBeanClass());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_slot_template_rejects_too_few_values() throws Exception {
+        engine.compileSlots("${a}", "a", "b").render(new Object[] { "x" });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_slot_template_rejects_duplicate_paths() throws Exception {
+        engine.compileSlots("${a}", "a", "a");
+    }
+
+    // --- lazy value tests ---
+
+    private static Pedido pedido(AtomicInteger clienteCalls, AtomicInteger totalCalls) {
+        Cliente comprador = new Cliente();
+        comprador.setNome("Ana");
+        comprador.setIdade(28);
+        Pedido pedido = new Pedido();
+        pedido.setNumero("P-1");
+        pedido.setCliente(() -> {
+            clienteCalls.incrementAndGet();
+            return comprador;
+        });
+        pedido.setTotal(() -> {
+            totalCalls.incrementAndGet();
+            return 99.9;
+        });
+        return pedido;
+    }
+
+    @Test
+    public void test_map_suppliers_are_evaluated_only_when_referenced() throws Exception {
+        AtomicInteger saldoCalls = new AtomicInteger();
+        AtomicInteger limiteCalls = new AtomicInteger();
+        Map<String, Object> contexto = new HashMap<>();
+        contexto.put("nome", "Maria");
+        contexto.put("saldo", (Supplier<Object>) () -> {
+            saldoCalls.incrementAndGet();
+            return 150;
+        });
+        contexto.put("limite", (Supplier<Object>) () -> {
+            limiteCalls.incrementAndGet();
+            return 1000;
+        });
+        assertEquals("Maria: 150 (150)", engine.process("${nome}: ${saldo} (${saldo})", contexto));
+        assertEquals(1, saldoCalls.get());
+        assertEquals(0, limiteCalls.get());
+        engine.process("${saldo}", contexto);
+        assertEquals(2, saldoCalls.get());
+    }
+
+    @Test
+    public void test_bean_suppliers_are_unwrapped_once_per_render() throws Exception {
+        int[] strategies = { TemplateEngine.REFLECTION_ACCESSORS, TemplateEngine.METHOD_HANDLE_ACCESSORS,
+                TemplateEngine.LAMBDA_ACCESSORS };
+        for (int strategy : strategies) {
+            TemplateEngine lazyEngine = TemplateEngine.builder()
+                    .accessorStrategy(strategy)
+                    .specializedRenderers(true)
+                    .build();
+            AtomicInteger clienteCalls = new AtomicInteger();
+            AtomicInteger totalCalls = new AtomicInteger();
+            Pedido pedido = pedido(clienteCalls, totalCalls);
+            assertEquals("P-1 Ana 28", lazyEngine.process("${numero} ${cliente.nome} ${cliente.idade}", pedido));
+            assertEquals(1, clienteCalls.get());
+            assertEquals(0, totalCalls.get());
+            assertEquals("\"Ana\" 99.9", lazyEngine.process("${cliente.nome} ${total}", pedido,
+                    TemplateEngine.JSON_SERIALIZATION));
+            assertEquals(2, clienteCalls.get());
+            assertEquals(1, totalCalls.get());
+        }
+    }
+
+    @Test
+    public void test_streaming_render_evaluates_suppliers_once() throws Exception {
+        AtomicInteger clienteCalls = new AtomicInteger();
+        AtomicInteger totalCalls = new AtomicInteger();
+        StringBuilder out = new StringBuilder();
+        engine.process(new StringReader("${cliente.nome}/${cliente.idade}/${cliente.nome}"),
+                pedido(clienteCalls, totalCalls), TemplateEngine.STRING_SERIALIZATION, out, 4);
+        assertEquals("Ana/28/Ana", out.toString());
+        assertEquals(1, clienteCalls.get());
+        assertEquals(0, totalCalls.get());
+    }
+
+    @Test
+    public void test_failing_supplier_throws_GetPropertyException() throws Exception {
+        Pedido pedido = new Pedido();
+        pedido.setTotal(() -> {
+            throw new IllegalStateException("cotação indisponível");
+        });
+        try {
+            engine.process("${total}", pedido);
+            fail("Expected GetPropertyException");
+        } catch (GetPropertyException e) {
+            assertEquals("total", e.getProperty());
+            assertEquals(Pedido.class, e.getBeanClass());
+            assertEquals("cotação indisponível", e.getCause().getMessage());
+        }
+    }
 }
@@ -0,0 +1,9 @@
+#!/bin/sh
+# Builds the library and the benchmarks, then runs them with the GC profiler.
+# Extra arguments are passed to JMH, e.g.:
+#   ./template-engine-benchmarks/run.sh RenderBenchmark -rf json -rff results.json
+set -e
+cd "$(dirname "$0")/.."
+mvn -B -q install -DskipTests
+mvn -B -q -f template-engine-benchmarks/pom.xml package
+java -jar template-engine-benchmarks/target/benchmarks.jar -prof gc "$@"
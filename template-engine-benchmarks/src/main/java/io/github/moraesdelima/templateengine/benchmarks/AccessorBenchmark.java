@@ -0,0 +1,60 @@
+package io.github.moraesdelima.templateengine.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.moraesdelima.templateengine.CompiledTemplate;
+import io.github.moraesdelima.templateengine.TemplateEngine;
+import io.github.moraesdelima.templateengine.TemplateEngineException;
+
+/**
+ * Compares the property accessor strategies of {@link TemplateEngine} on
+ * nested {@code Cliente}/{@code Endereco} beans.
+ *
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccessorBenchmark {
+
+    /** 0 = reflection, 1 = method handles, 2 = LambdaMetafactory. */
+    @Param({ "0", "1", "2" })
+    public int accessorStrategy;
+
+    private TestBean bean;
+    private CompiledTemplate flat;
+    private CompiledTemplate nested;
+
+    @Setup
+    public void setUp() throws TemplateEngineException {
+        TemplateEngine engine = TemplateEngine.builder().accessorStrategy(accessorStrategy).build();
+        bean = TestBean.sample();
+        flat = engine.compile("${registro}");
+        nested = engine.compile("${cliente.nome} ${cliente.idade} ${cliente.endereco.rua}, ${cliente.endereco.numero}");
+    }
+
+    @Benchmark
+    public String flatProperty() throws TemplateEngineException {
+        return flat.render(bean);
+    }
+
+    @Benchmark
+    public String nestedProperties() throws TemplateEngineException {
+        return nested.render(bean);
+    }
+}
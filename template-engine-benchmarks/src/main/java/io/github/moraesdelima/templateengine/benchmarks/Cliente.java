@@ -0,0 +1,11 @@
+package io.github.moraesdelima.templateengine.benchmarks;
+
+import lombok.Data;
+
+@Data
+public class Cliente {
+    private String nome;
+    private int idade;
+    private boolean ativo;
+    private Endereco endereco;
+}
@@ -0,0 +1,9 @@
+package io.github.moraesdelima.templateengine.benchmarks;
+
+import lombok.Data;
+
+@Data
+public class Endereco {
+    private String rua;
+    private int numero;
+}
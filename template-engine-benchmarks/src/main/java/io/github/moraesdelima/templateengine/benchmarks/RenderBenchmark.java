@@ -0,0 +1,82 @@
+package io.github.moraesdelima.templateengine.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.moraesdelima.templateengine.TemplateEngine;
+import io.github.moraesdelima.templateengine.TemplateEngineException;
+
+/**
+ * Measures {@link TemplateEngine#process(String, Object, int)} on the
+ * placeholder shapes found in real templates, in both serialization types.
+ * <p>
+ * {@code process} is measured rather than a compiled template so that the
+ * template cache lookup is part of the cost, as it is for most callers. Run
+ * with {@code -prof gc} to report the allocation rate of each path.
+ *
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderBenchmark {
+
+    /** 0 = STRING_SERIALIZATION, 1 = JSON_SERIALIZATION. */
+    @Param({ "0", "1" })
+    public int serializationType;
+
+    private TemplateEngine engine;
+    private TestBean bean;
+
+    @Setup
+    public void setUp() throws TemplateEngineException {
+        engine = TemplateEngine.builder()
+                .formatter("upper", (property, value) -> value.toString().toUpperCase())
+                .build();
+        bean = TestBean.sample();
+    }
+
+    @Benchmark
+    public String flatProperty() throws TemplateEngineException {
+        return engine.process("Registro: ${registro}", bean, serializationType);
+    }
+
+    @Benchmark
+    public String nestedPath() throws TemplateEngineException {
+        return engine.process("Rua: ${cliente.endereco.rua}, ${cliente.endereco.numero}", bean, serializationType);
+    }
+
+    @Benchmark
+    public String mapNavigation() throws TemplateEngineException {
+        return engine.process("Cliente: ${dados.cliente.nome} via ${dados.canal}", bean, serializationType);
+    }
+
+    @Benchmark
+    public String customFormatter() throws TemplateEngineException {
+        return engine.process("Nome: ${cliente.nome|upper}", bean, serializationType);
+    }
+
+    /**
+     * Lists can only be rendered with JSON_SERIALIZATION (STRING_SERIALIZATION
+     * rejects them with a SerializePropertyException, covered by the unit
+     * tests), so this benchmark ignores the serialization parameter.
+     */
+    @Benchmark
+    public String list() throws TemplateEngineException {
+        return engine.process("Lista: ${lista}", bean, TemplateEngine.JSON_SERIALIZATION);
+    }
+}
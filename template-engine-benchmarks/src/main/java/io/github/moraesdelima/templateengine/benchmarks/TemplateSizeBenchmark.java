@@ -0,0 +1,83 @@
+package io.github.moraesdelima.templateengine.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.moraesdelima.templateengine.CompiledTemplate;
+import io.github.moraesdelima.templateengine.TemplateEngine;
+import io.github.moraesdelima.templateengine.TemplateEngineException;
+
+/**
+ * Measures how rendering scales with the template: a large template with few
+ * placeholders, where copying literal text dominates, and a template with many
+ * placeholders, where property resolution dominates. Parsing is measured
+ * separately by {@link #compile()}.
+ *
+ * @author <a href="mailto:luiz.moraes@zipdin.com.br">luiz.moraes</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateSizeBenchmark {
+
+    /** Number of placeholders in the template. */
+    @Param({ "10", "100", "1000" })
+    public int placeholders;
+
+    /** Characters of literal text between two placeholders. */
+    @Param({ "16", "1024" })
+    public int literalLength;
+
+    /** 0 = STRING_SERIALIZATION, 1 = JSON_SERIALIZATION. */
+    @Param({ "0", "1" })
+    public int serializationType;
+
+    private TemplateEngine engine;
+    private TestBean bean;
+    private String template;
+    private CompiledTemplate compiled;
+
+    @Setup
+    public void setUp() throws TemplateEngineException {
+        engine = new TemplateEngine();
+        bean = TestBean.sample();
+        String[] paths = { "registro", "cliente.nome", "cliente.idade", "cliente.endereco.rua",
+                "cliente.endereco.numero", "dados.canal" };
+        String literal = "x".repeat(literalLength);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < placeholders; i++) {
+            text.append(literal).append("${").append(paths[i % paths.length]).append('}');
+        }
+        template = text.append(literal).toString();
+        compiled = engine.compile(template, serializationType);
+    }
+
+    @Benchmark
+    public String render() throws TemplateEngineException {
+        return compiled.render(bean);
+    }
+
+    @Benchmark
+    public String process() throws TemplateEngineException {
+        return engine.process(template, bean, serializationType);
+    }
+
+    @Benchmark
+    public CompiledTemplate compile() throws TemplateEngineException {
+        return engine.compile(template, serializationType);
+    }
+}
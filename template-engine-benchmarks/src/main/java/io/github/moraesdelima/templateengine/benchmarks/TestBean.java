@@ -0,0 +1,36 @@
+package io.github.moraesdelima.templateengine.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.Data;
+
+@Data
+public class TestBean {
+    private String registro;
+    private Cliente cliente;
+    private List<String> lista;
+    private Map<String, Object> dados;
+
+    /**
+     * @return a bean populated like the one used by the library tests
+     */
+    public static TestBean sample() {
+        Endereco endereco = new Endereco();
+        endereco.setRua("Silveira Martins");
+        endereco.setNumero(30);
+
+        Cliente cliente = new Cliente();
+        cliente.setNome("João");
+        cliente.setIdade(32);
+        cliente.setAtivo(true);
+        cliente.setEndereco(endereco);
+
+        TestBean bean = new TestBean();
+        bean.setRegistro("123456");
+        bean.setCliente(cliente);
+        bean.setLista(List.of("value1", "value2", "value3", "value4", "value5"));
+        bean.setDados(Map.of("cliente", cliente, "canal", "web"));
+        return bean;
+    }
+}